@@ -0,0 +1,43 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of learning a pattern from a whole corpus, and one pattern per cluster of similar urls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class BuildPatternBenchmark {
+
+    @Param({"FORUM", "NUMERIC", "QUERY", "MULTI_DOMAIN"})
+    public Corpus.Shape shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private List<String> urls;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        urls = Corpus.generate(shape, size);
+    }
+
+    @Benchmark
+    public Pattern buildPattern() {
+        return URLRegex.buildPattern(urls);
+    }
+
+    @Benchmark
+    public List<Pattern> buildPatterns() {
+        return URLRegex.buildPatterns(urls, ForkJoinPool.commonPool());
+    }
+}
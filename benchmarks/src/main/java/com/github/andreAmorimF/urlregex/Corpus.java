@@ -0,0 +1,104 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic url corpora used by the benchmarks. Corpora are deterministic for a given shape, size and seed.
+ */
+public final class Corpus {
+
+    private static final String[] WORDS = {"travel", "cardio", "musculation", "printers", "discounts", "offers",
+        "costa", "rica", "city", "tours", "highlights", "members", "presentation", "index", "archive", "news"};
+
+    private static final String[] TLDS = {"com", "fr", "co.uk", "net", "de"};
+
+    public enum Shape {
+
+        /**
+         * Forum listings and topics with mixed depths: /forums/viewforum_31.htm, /forums/22/forum-cardio/page/6
+         */
+        FORUM,
+
+        /**
+         * Fixed path with numeric identifiers: /topic/123/page/4
+         */
+        NUMERIC,
+
+        /**
+         * Few paths with long query strings: /search.php?q=...&sid=...&page=2
+         */
+        QUERY,
+
+        /**
+         * Same paths spread across many hosts and domains
+         */
+        MULTI_DOMAIN
+    }
+
+    private Corpus() {
+    }
+
+    public static List<String> generate(Shape shape, int size) {
+        return generate(shape, size, 42L);
+    }
+
+    public static List<String> generate(Shape shape, int size, long seed) {
+        Random random = new Random(seed);
+        List<String> urls = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            urls.add(url(shape, random));
+        }
+        return urls;
+    }
+
+    private static String url(Shape shape, Random random) {
+        StringBuilder url = new StringBuilder(random.nextInt(4) == 0 ? "https://" : "http://");
+        switch (shape) {
+            case FORUM:
+                url.append("www.domain.com/forums");
+                switch (random.nextInt(4)) {
+                    case 0:
+                        url.append('/');
+                        break;
+                    case 1:
+                        url.append("/viewforum_").append(random.nextInt(100)).append(".htm");
+                        break;
+                    case 2:
+                        url.append("/viewtopic_").append(random.nextInt(100000)).append('-')
+                            .append(random.nextInt(50)).append(".htm");
+                        break;
+                    default:
+                        url.append('/').append(random.nextInt(100)).append("/forum-").append(word(random))
+                            .append("/view/page/").append(random.nextInt(30));
+                }
+                break;
+            case NUMERIC:
+                url.append("www.domain.com/topic/").append(random.nextInt(10000000))
+                    .append("/page/").append(random.nextInt(100));
+                break;
+            case QUERY:
+                url.append("www.domain.com/").append(random.nextBoolean() ? "search.php" : "forum/viewforum.php");
+                url.append("?q=").append(word(random)).append('+').append(word(random));
+                url.append("&sid=").append(Long.toHexString(random.nextLong()));
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    url.append(random.nextBoolean() ? '&' : ';').append(word(random)).append(i).append('=')
+                        .append(random.nextInt(1000));
+                }
+                if (random.nextBoolean())
+                    url.append("&edit");
+                break;
+            case MULTI_DOMAIN:
+                url.append(random.nextBoolean() ? "www." : "forum.").append(word(random)).append('-')
+                    .append(random.nextInt(500)).append('.').append(TLDS[random.nextInt(TLDS.length)]);
+                url.append('/').append(word(random)).append("/index").append(random.nextInt(20)).append(".html");
+                break;
+        }
+        return url.toString();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
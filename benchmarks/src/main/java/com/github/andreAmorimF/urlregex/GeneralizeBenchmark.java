@@ -0,0 +1,110 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the alignment primitives used while folding urls, measured on pairs of urls of the same corpus.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneralizeBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"FORUM", "NUMERIC", "QUERY", "MULTI_DOMAIN"})
+    public Corpus.Shape shape;
+
+    private List<List<URLSegment>> segments;
+    private String[] tokens;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<String> urls = Corpus.generate(shape, PAIRS + 1);
+        segments = new ArrayList<>(urls.size());
+        List<String> allTokens = new ArrayList<>();
+        for (String url : urls) {
+            List<URLSegment> elements = tokenize(url);
+            segments.add(elements);
+            for (URLSegment segment : elements) {
+                allTokens.add(segment.getContent());
+            }
+        }
+        tokens = allTokens.toArray(new String[allTokens.size()]);
+    }
+
+    @Benchmark
+    public List<URLSegment> generalize(Pair pair) {
+        return URLRegex.generalize(pair.left, pair.right);
+    }
+
+    @Benchmark
+    public String generalizeStep() {
+        int i = next(tokens.length - 1);
+        return URLRegex.generalizeStep(tokens[i], tokens[i + 1]);
+    }
+
+    @Benchmark
+    public double matchScore() {
+        int i = next(tokens.length - 1);
+        return URLRegex.matchScore(tokens[i], tokens[i + 1]);
+    }
+
+    private int next(int bound) {
+        index = index + 1 < bound ? index + 1 : 0;
+        return index;
+    }
+
+    /**
+     * Copies of the next pair of urls, made before each call as generalize changes the segments it is given
+     */
+    @State(Scope.Thread)
+    public static class Pair {
+
+        private List<URLSegment> left;
+        private List<URLSegment> right;
+
+        @Setup(Level.Invocation)
+        public void setup(GeneralizeBenchmark benchmark) {
+            int i = benchmark.next(benchmark.segments.size() - 1);
+            left = copy(benchmark.segments.get(i));
+            right = copy(benchmark.segments.get(i + 1));
+        }
+    }
+
+    private static List<URLSegment> copy(List<URLSegment> segments) {
+        List<URLSegment> copy = new ArrayList<>(segments.size());
+        for (URLSegment segment : segments) {
+            copy.add(new URLSegment(segment.getContent(), segment.getSeparator(), segment.isOptional()));
+        }
+        return copy;
+    }
+
+    /**
+     * Split url in segments the same way the builder does, for urls generated by {@link Corpus}
+     */
+    static List<URLSegment> tokenize(String url) {
+        String path = url.substring(url.indexOf("://") + 3);
+        int split = path.indexOf('?');
+        if (split > -1)
+            path = path.substring(0, split);
+
+        List<URLSegment> elements = new ArrayList<>();
+        String[] parts = path.split("/");
+        for (int i = 0; i < parts.length; i++) {
+            String token = i == 0 ? URLRegex.reverseDomainToken(parts[i]) : parts[i];
+            String separator = i < parts.length - 1 || path.endsWith("/") ? "/" : "";
+            elements.add(new URLSegment(token, separator));
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cost of testing urls against a learned pattern, with {@link Pattern}, with {@link URLAutomaton} and with
+ * {@link SpecializedMatcher}. Half of the probes come from the learned shape (mostly accepted),
+ * the other half from the other shapes (rejected).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MatchBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"FORUM", "NUMERIC", "QUERY", "MULTI_DOMAIN"})
+    public Corpus.Shape shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private Matcher matcher;
+    private URLAutomaton automaton;
+    private SpecializedMatcher specialized;
+    private String[] probes;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        URLModel model = new URLRegexBuilder().addAll(Corpus.generate(shape, size)).snapshotModel();
+        Pattern pattern = model.toPattern();
+        matcher = pattern.matcher("");
+        automaton = URLAutomaton.compile(pattern);
+        specialized = model.toSpecializedMatcher();
+
+        List<String> urls = new ArrayList<>(Corpus.generate(shape, PROBES / 2, 7L));
+        for (Corpus.Shape other : Corpus.Shape.values()) {
+            if (other != shape)
+                urls.addAll(Corpus.generate(other, PROBES / 2 / (Corpus.Shape.values().length - 1), 7L));
+        }
+        probes = urls.toArray(new String[urls.size()]);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        index = index + 1 < probes.length ? index + 1 : 0;
+        return matcher.reset(probes[index]).matches();
+    }
+
+    @Benchmark
+    public boolean automatonMatches() {
+        index = index + 1 < probes.length ? index + 1 : 0;
+        return automaton.matches(probes[index]);
+    }
+
+    @Benchmark
+    public boolean specializedMatches() {
+        index = index + 1 < probes.length ? index + 1 : 0;
+        return specialized.matches(probes[index]);
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Dynamic programming table aligning two lists of interned segments, see {@link URLRegex#generalize}.
+ * Directions are kept in a flat byte array and scores in two rolling rows, all reused per thread, so that aligning
+ * does not allocate once the buffers have grown to the longest lists seen.
+ *
+ * In banded mode, only cells at most {@code band} diagonals away from the diagonals joining both corners of the table
+ * are computed. Time and memory become linear in the length of the lists, but segments cannot be shifted by more than
+ * {@code band} positions against each other.
+ */
+final class Alignment {
+
+    static final byte MATCH = 0;
+    static final byte SKIP_P1 = 1;
+    static final byte SKIP_P2 = 2;
+
+    private static final ThreadLocal<Alignment> INSTANCES = new ThreadLocal<Alignment>() {
+        @Override
+        protected Alignment initialValue() {
+            return new Alignment();
+        }
+    };
+
+    private byte[] directions = new byte[256];
+    private double[] previous = new double[16];
+    private double[] current = new double[16];
+
+    private int columns;
+    private boolean banded;
+    private int low;
+    private int high;
+    private int width;
+
+    private Alignment() {
+    }
+
+    /**
+     * @return the instance of the current thread
+     */
+    static Alignment get() {
+        return INSTANCES.get();
+    }
+
+    /**
+     * Fill the table for both lists of segments. The first segments of both lists are always matched together.
+     * @param tokens1 ids of the first list of segments
+     * @param tokens2 ids of the second list of segments
+     * @param dictionary dictionary holding the segments
+     * @param band number of diagonals computed around the corners, or 0 to compute the whole table
+     * @return number of cells computed
+     */
+    long align(int[] tokens1, int[] tokens2, TokenDictionary dictionary, int band) {
+
+        final int len1 = tokens1.length;
+        final int len2 = tokens2.length;
+
+        // Diagonals j - i of the cells to compute
+        columns = len2;
+        banded = band > 0;
+        low = banded ? Math.max(1 - len1, Math.min(0, len2 - len1) - band) : 1;
+        high = banded ? Math.min(len2 - 1, Math.max(0, len2 - len1) + band) : len2 - 1;
+        width = banded ? high - low + 1 : len2 - 1;
+
+        int size = Math.max(0, (len1 - 1) * width);
+        if (directions.length < size)
+            directions = new byte[Math.max(size, directions.length * 2)];
+        if (previous.length < len2) {
+            previous = new double[Math.max(len2, previous.length * 2)];
+            current = new double[previous.length];
+        }
+
+        for (int j = 0; j < len2; j++) {
+            previous[j] = 0.0;
+        }
+
+        // Check scores between segments
+        long cells = 0;
+        for (int i = 1; i < len1; i++) {
+            int from = from(i);
+            int to = to(i);
+            cells += Math.max(0, to - from + 1);
+
+            current[0] = 0.0;
+            if (from > 1)
+                current[from - 1] = Double.NEGATIVE_INFINITY;
+
+            for (int j = from; j <= to; j++) {
+                double s1 = current[j - 1];
+                double s2 = previous[j];
+                double m = previous[j - 1] + URLRegex.matchScore(dictionary, tokens1[i], tokens2[j],
+                    previous[j - 1], Math.max(s1, s2));
+
+                int cell = index(i, j);
+                if (m >= s1 && m >= s2) {
+                    directions[cell] = MATCH;
+                    current[j] = m;
+                } else if (s1 >= s2) {
+                    directions[cell] = SKIP_P1;
+                    current[j] = s1;
+                } else {
+                    directions[cell] = SKIP_P2;
+                    current[j] = s2;
+                }
+            }
+
+            // Cell above the band of the next row
+            if (to + 1 < len2)
+                current[to + 1] = Double.NEGATIVE_INFINITY;
+
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return cells;
+    }
+
+    /**
+     * @param i index in the first list
+     * @param j index in the second list
+     * @return best move from cell (i, j) of the last aligned table, towards the first segments
+     */
+    byte direction(int i, int j) {
+        if (i == 0)
+            return j == 0 ? MATCH : SKIP_P1;
+        if (j == 0)
+            return SKIP_P2;
+        return directions[index(i, j)];
+    }
+
+    private int from(int i) {
+        return banded ? Math.max(1, i + low) : 1;
+    }
+
+    private int to(int i) {
+        return banded ? Math.min(i + high, columns - 1) : high;
+    }
+
+    private int index(int i, int j) {
+        return (i - 1) * width + j - (banded ? i + low : 1);
+    }
+}
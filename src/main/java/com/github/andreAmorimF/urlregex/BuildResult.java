@@ -0,0 +1,47 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.util.regex.Pattern;
+
+/**
+ * Pattern of a build bounded by a budget, see {@link URLRegex#buildPattern(java.util.List, int, long,
+ * java.util.concurrent.TimeUnit)}. A partial pattern matches the urls processed before the budget ran out, not
+ * necessarily the others.
+ */
+public final class BuildResult {
+
+    private final Pattern pattern;
+    private final boolean partial;
+    private final int processed;
+
+    BuildResult(Pattern pattern, boolean partial, int processed) {
+        this.pattern = pattern;
+        this.partial = partial;
+        this.processed = processed;
+    }
+
+    /**
+     * @return the most general regex matching the urls processed
+     */
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @return if the budget ran out before all urls were processed
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * @return number of urls processed, the first ones of the list
+     */
+    public int processed() {
+        return processed;
+    }
+
+    @Override
+    public String toString() {
+        return (partial ? "partial " : "") + pattern.pattern() + " (" + processed + " urls)";
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Learns a pattern from urls offered by many threads, such as the fetcher threads of a crawler. Urls are folded into
+ * one of several partial models, picked by thread, each guarded by its own lock, so that offering threads rarely
+ * wait for each other and never for a global lock.
+ *
+ * The partial models are merged on {@link #refresh()}, which publishes an immutable {@link Snapshot} with its
+ * compiled regex. {@link #snapshot()} returns the last published one and never blocks.
+ */
+public final class ConcurrentURLLearner {
+
+    /**
+     * Model, compiled regex and number of urls of a published state of the learner
+     */
+    public static final class Snapshot implements URLMatcher {
+
+        private final URLModel model;
+        private final Pattern pattern;
+
+        Snapshot(URLModel model, Pattern pattern) {
+            this.model = model;
+            this.pattern = pattern;
+        }
+
+        /**
+         * @return the merged model, or null before the first url was learned
+         */
+        public URLModel getModel() {
+            return model;
+        }
+
+        /**
+         * @return the regex of the merged model, or null before the first url was learned
+         */
+        public Pattern getPattern() {
+            return pattern;
+        }
+
+        /**
+         * @return number of urls learned
+         */
+        public int size() {
+            return model == null ? 0 : model.size();
+        }
+
+        @Override
+        public boolean matches(CharSequence url) {
+            return pattern != null && pattern.matcher(url).matches();
+        }
+
+        @Override
+        public String toString() {
+            return pattern == null ? "" : pattern.pattern();
+        }
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(null, null);
+
+    private final Supplier<URLRegexBuilder> builders;
+    private final URLRegexBuilder[] stripes;
+    private final LongAdder offered = new LongAdder();
+
+    /**
+     * Refreshing threads wait for each other, but not offering nor reading threads
+     */
+    private final Object refreshLock = new Object();
+    private volatile Snapshot snapshot = EMPTY;
+
+    public ConcurrentURLLearner() {
+        this(URLRegexBuilder::new, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param builders creates the builders of the partial models and of the merged one, configured as needed
+     * @param stripes number of partial models, a few times the number of cores is plenty
+     */
+    public ConcurrentURLLearner(Supplier<URLRegexBuilder> builders, int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException("Non positive number of stripes: " + stripes);
+
+        this.builders = builders;
+        this.stripes = new URLRegexBuilder[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = builders.get();
+        }
+    }
+
+    /**
+     * Fold an url into the partial model of the calling thread. It is part of snapshots published after the next
+     * {@link #refresh()}.
+     * @param url
+     */
+    public void offer(CharSequence url) {
+        URLRegexBuilder stripe = stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+        synchronized (stripe) {
+            stripe.add(url);
+        }
+        offered.increment();
+    }
+
+    /**
+     * @return number of urls offered so far, learned or not by the current snapshot
+     */
+    public long offered() {
+        return offered.sum();
+    }
+
+    /**
+     * Merge the partial models and publish the result. Each partial model is locked only while it is copied, and the
+     * merge itself runs without blocking offering threads.
+     * @return the published snapshot
+     */
+    public Snapshot refresh() {
+        synchronized (refreshLock) {
+            List<URLModel> models = new ArrayList<>(stripes.length);
+            for (URLRegexBuilder stripe : stripes) {
+                synchronized (stripe) {
+                    if (stripe.size() > 0)
+                        models.add(stripe.snapshotModel());
+                }
+            }
+            if (models.isEmpty())
+                return snapshot;
+
+            URLRegexBuilder merged = builders.get();
+            for (URLModel model : models) {
+                merged.merge(new URLRegexBuilder(model));
+            }
+
+            Snapshot result = new Snapshot(merged.snapshotModel(), merged.snapshot());
+            snapshot = result;
+            return result;
+        }
+    }
+
+    /**
+     * @return the last published snapshot, without blocking
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+}
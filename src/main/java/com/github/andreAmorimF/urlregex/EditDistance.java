@@ -0,0 +1,175 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Levenshtein distance between url segments, where runs of digits are compared as if they were replaced by
+ * {@code NUM}. Buffers are kept per thread and reused, so once they have grown to the longest segment seen, computing
+ * a distance does not allocate.
+ */
+final class EditDistance {
+
+    private static final String NUMBER_PART = "NUM";
+
+    private static final ThreadLocal<EditDistance> INSTANCES = new ThreadLocal<EditDistance>() {
+        @Override
+        protected EditDistance initialValue() {
+            return new EditDistance();
+        }
+    };
+
+    private char[] first = new char[32];
+    private char[] second = new char[32];
+    private int firstLength;
+    private int secondLength;
+
+    private int[] previous = new int[33];
+    private int[] current = new int[33];
+
+    EditDistance() {
+    }
+
+    /**
+     * @return the instance of the current thread
+     */
+    static EditDistance get() {
+        return INSTANCES.get();
+    }
+
+    /**
+     * Load both segments, with their digit runs replaced by NUM.
+     * @param s1
+     * @param s2
+     * @return if both segments are equal once their numbers are replaced
+     */
+    boolean load(CharSequence s1, CharSequence s2) {
+        first = ensureCapacity(first, normalizedCapacity(s1));
+        firstLength = normalize(s1, first);
+        second = ensureCapacity(second, normalizedCapacity(s2));
+        secondLength = normalize(s2, second);
+
+        if (firstLength != secondLength)
+            return false;
+        for (int i = 0; i < firstLength; i++) {
+            if (first[i] != second[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return length of the longest loaded segment
+     */
+    int maxLength() {
+        return Math.max(firstLength, secondLength);
+    }
+
+    /**
+     * Distance between the loaded segments. The computation stops as soon as the distance is known to be lower than
+     * {@code atLeast}.
+     * @param atLeast smallest distance the caller is interested in
+     * @return the distance, or -1 if it is lower than atLeast
+     */
+    int distance(int atLeast) {
+        return distance(first, firstLength, second, secondLength, atLeast);
+    }
+
+    /**
+     * Distance between two already normalized segments, see {@link #distance(int)}.
+     * @param a first normalized segment
+     * @param firstLength length of the first segment
+     * @param b second normalized segment
+     * @param secondLength length of the second segment
+     * @param atLeast smallest distance the caller is interested in
+     * @return the distance, or -1 if it is lower than atLeast
+     */
+    int distance(char[] a, int firstLength, char[] b, int secondLength, int atLeast) {
+
+        // Common prefix and suffix do not change the distance
+        int prefix = 0;
+        while (prefix < firstLength && prefix < secondLength && a[prefix] == b[prefix])
+            prefix++;
+        int suffix = 0;
+        while (suffix < firstLength - prefix && suffix < secondLength - prefix &&
+            a[firstLength - 1 - suffix] == b[secondLength - 1 - suffix])
+            suffix++;
+
+        final int n = firstLength - prefix - suffix;
+        final int m = secondLength - prefix - suffix;
+        if (Math.max(n, m) < atLeast)
+            return -1;
+        if (n == 0 || m == 0)
+            return Math.max(n, m);
+
+        if (previous.length <= m) {
+            previous = new int[m + 1];
+            current = new int[m + 1];
+        }
+
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            char c = a[prefix + i - 1];
+            current[0] = i;
+
+            // Upper bound of the final distance: distance so far plus editing all remaining chars
+            int bound = i + Math.max(n - i, m);
+            for (int j = 1; j <= m; j++) {
+                int cost = c == b[prefix + j - 1] ? 0 : 1;
+                int d = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                current[j] = d;
+                bound = Math.min(bound, d + Math.max(n - i, m - j));
+            }
+
+            if (bound < atLeast)
+                return -1;
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return previous[m];
+    }
+
+    /**
+     * @param s
+     * @return buffer size needed to normalize s
+     */
+    static int normalizedCapacity(CharSequence s) {
+        return s.length() * NUMBER_PART.length();
+    }
+
+    /**
+     * Write s into buffer with its digit runs replaced by NUM.
+     * @param s
+     * @param buffer buffer of at least {@link #normalizedCapacity(CharSequence)} chars
+     * @return length of the normalized segment
+     */
+    static int normalize(CharSequence s, char[] buffer) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (isDigit(c)) {
+                while (i + 1 < s.length() && isDigit(s.charAt(i + 1)))
+                    i++;
+                NUMBER_PART.getChars(0, NUMBER_PART.length(), buffer, length);
+                length += NUMBER_PART.length();
+            } else {
+                buffer[length++] = c;
+            }
+        }
+        return length;
+    }
+
+    static char[] ensureCapacity(char[] buffer, int capacity) {
+        return buffer.length >= capacity ? buffer : new char[Math.max(capacity, buffer.length * 2)];
+    }
+
+    /**
+     * Same chars as \d in regular expressions
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Glob, see {@link PatternDialect#GLOB}. Numbers, wildcards, optional runs of segments and queries all become '*', and
+ * an url allowing both protocols starts with http*://.
+ */
+final class GlobDialect implements PatternDialect {
+
+    private static final String METACHARACTERS = "*?[]\\";
+
+    @Override
+    public void protocol(boolean allowsHttp, boolean allowsSSL, StringBuilder out) {
+        if (allowsHttp && allowsSSL)
+            out.append("http*://");
+        else if (allowsSSL)
+            out.append("https://");
+        else if (allowsHttp)
+            out.append("http://");
+    }
+
+    @Override
+    public void literal(CharSequence text, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (METACHARACTERS.indexOf(c) >= 0)
+                out.append('\\');
+            out.append(c);
+        }
+    }
+
+    @Override
+    public void number(boolean possessive, StringBuilder out) {
+        star(out);
+    }
+
+    @Override
+    public void wildcard(char excluded, boolean required, boolean possessive, StringBuilder out) {
+        star(out);
+    }
+
+    @Override
+    public void separator(String separator, StringBuilder out) {
+        if (separator.endsWith("?"))
+            star(out);
+        else
+            out.append(separator);
+    }
+
+    @Override
+    public void optionalStart(StringBuilder out) {
+    }
+
+    @Override
+    public void optionalEnd(StringBuilder out, int start) {
+        out.setLength(start);
+        star(out);
+    }
+
+    @Override
+    public void queries(QueryModel queries, boolean optional, boolean possessive, StringBuilder out) {
+        star(out);
+    }
+
+    @Override
+    public void end(StringBuilder out) {
+    }
+
+    /**
+     * Append a '*', unless the glob already ends with one.
+     */
+    private static void star(StringBuilder out) {
+        int length = out.length();
+        if (length == 0 || out.charAt(length - 1) != '*' || length > 1 && out.charAt(length - 2) == '\\')
+            out.append('*');
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe {@link URLRegexMetrics} keeping the counters and, for each phase, a histogram of its timings in power
+ * of two buckets of nanoseconds. Recording is a few atomic additions and never allocates.
+ */
+public class HistogramMetrics implements URLRegexMetrics {
+
+    private static final int BUCKETS = 64;
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Counter[] COUNTERS = Counter.values();
+
+    /**
+     * Runs of each phase by bucket: bucket b holds timings of bit length b, in [2^(b-1), 2^b) nanos
+     */
+    private final AtomicLongArray buckets = new AtomicLongArray(PHASES.length * BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(PHASES.length);
+    private final AtomicLongArray maximums = new AtomicLongArray(PHASES.length);
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+
+    @Override
+    public void time(Phase phase, long nanos) {
+        int p = phase.ordinal();
+        nanos = Math.max(0, nanos);
+        buckets.incrementAndGet(p * BUCKETS + Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos)));
+        totals.addAndGet(p, nanos);
+
+        long max = maximums.get(p);
+        while (nanos > max && !maximums.compareAndSet(p, max, nanos))
+            max = maximums.get(p);
+    }
+
+    @Override
+    public void count(Counter counter, long delta) {
+        counters.addAndGet(counter.ordinal(), delta);
+    }
+
+    /**
+     * @param phase
+     * @return number of runs of the phase
+     */
+    public long count(Phase phase) {
+        long count = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            count += buckets.get(phase.ordinal() * BUCKETS + b);
+        }
+        return count;
+    }
+
+    /**
+     * @param phase
+     * @return time spent in all runs of the phase, in nanoseconds
+     */
+    public long totalNanos(Phase phase) {
+        return totals.get(phase.ordinal());
+    }
+
+    /**
+     * @param phase
+     * @return longest run of the phase, in nanoseconds
+     */
+    public long maxNanos(Phase phase) {
+        return maximums.get(phase.ordinal());
+    }
+
+    /**
+     * @param phase
+     * @param quantile between 0 and 1, 0.99 for the 99th percentile
+     * @return upper bound of the bucket holding the quantile of the timings of the phase, in nanoseconds, or 0 if the
+     * phase never ran
+     */
+    public long quantileNanos(Phase phase, double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("Quantile out of [0, 1]: " + quantile);
+
+        long count = count(phase);
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets.get(phase.ordinal() * BUCKETS + b);
+            if (seen >= rank)
+                return Math.min(maxNanos(phase), b == 0 ? 0 : b >= 63 ? Long.MAX_VALUE : (1L << b) - 1);
+        }
+        return maxNanos(phase);
+    }
+
+    /**
+     * @param counter
+     * @return value of the counter
+     */
+    public long get(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    /**
+     * Reset all timings and counters.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        for (int p = 0; p < PHASES.length; p++) {
+            totals.set(p, 0);
+            maximums.set(p, 0);
+        }
+        for (int c = 0; c < COUNTERS.length; c++) {
+            counters.set(c, 0);
+        }
+    }
+
+    /**
+     * @return one line per phase with its runs, total, median, 99th percentile and max in microseconds, followed by
+     * one line per counter
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        for (Phase phase : PHASES) {
+            report.append(String.format("%-16s runs=%d total=%.1fus p50<=%.1fus p99<=%.1fus max=%.1fus%n", phase,
+                count(phase), totalNanos(phase) / 1000.0, quantileNanos(phase, 0.5) / 1000.0,
+                quantileNanos(phase, 0.99) / 1000.0, maxNanos(phase) / 1000.0));
+        }
+        for (Counter counter : COUNTERS) {
+            report.append(String.format("%-16s %d%n", counter, get(counter)));
+        }
+        return report.toString();
+    }
+}
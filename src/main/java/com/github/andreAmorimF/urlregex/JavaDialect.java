@@ -0,0 +1,66 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Regex of {@link java.util.regex.Pattern}, see {@link PatternDialect#JAVA}
+ */
+class JavaDialect implements PatternDialect {
+
+    private static final String METACHARACTERS = ".?*+^$[]\\(){}|-";
+
+    @Override
+    public void protocol(boolean allowsHttp, boolean allowsSSL, StringBuilder out) {
+        if (allowsHttp && allowsSSL)
+            out.append("^https?://");
+        else if (allowsSSL)
+            out.append("^https://");
+        else if (allowsHttp)
+            out.append("^http://");
+    }
+
+    @Override
+    public void literal(CharSequence text, int start, int end, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (METACHARACTERS.indexOf(c) >= 0)
+                out.append('\\');
+            out.append(c);
+        }
+    }
+
+    @Override
+    public void number(boolean possessive, StringBuilder out) {
+        out.append(possessive ? "\\d++" : "\\d+");
+    }
+
+    @Override
+    public void wildcard(char excluded, boolean required, boolean possessive, StringBuilder out) {
+        out.append("[^").append(excluded).append(']').append(required ? '+' : '*');
+        if (possessive)
+            out.append('+');
+    }
+
+    @Override
+    public void separator(String separator, StringBuilder out) {
+        out.append(separator);
+    }
+
+    @Override
+    public void optionalStart(StringBuilder out) {
+        out.append('(');
+    }
+
+    @Override
+    public void optionalEnd(StringBuilder out, int start) {
+        out.append(")?");
+    }
+
+    @Override
+    public void queries(QueryModel queries, boolean optional, boolean possessive, StringBuilder out) {
+        out.append(possessive ? queries.toPossessiveRegex(optional) : queries.toRegex(optional));
+    }
+
+    @Override
+    public void end(StringBuilder out) {
+        out.append('$');
+    }
+}
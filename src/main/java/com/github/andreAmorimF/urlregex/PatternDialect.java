@@ -0,0 +1,91 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Writes the parts of a generalized model in the syntax of a pattern language, see {@link URLModel#emit}. The model is
+ * walked once, from the protocol to the query, each part being appended to the same builder.
+ *
+ * Dialects which cannot express a part exactly, such as globs, write a more general one instead, so that patterns
+ * still match every url of the model.
+ */
+public interface PatternDialect {
+
+    /**
+     * Regex of {@link java.util.regex.Pattern}, as built by {@link URLRegex#buildPattern(java.util.List)}
+     */
+    PatternDialect JAVA = new JavaDialect();
+
+    /**
+     * Accepting line of a Nutch regex-urlfilter.txt file, or of a Heritrix regex decide rule: a Java regex anchored at
+     * the start of the url, prefixed by '+'
+     */
+    PatternDialect URL_FILTER = new URLFilterDialect();
+
+    /**
+     * Glob where '*' matches any text, including slashes
+     */
+    PatternDialect GLOB = new GlobDialect();
+
+    /**
+     * @param allowsHttp if some url used the http protocol
+     * @param allowsSSL if some url used the https protocol
+     * @param out
+     */
+    void protocol(boolean allowsHttp, boolean allowsSSL, StringBuilder out);
+
+    /**
+     * @param text
+     * @param start offset of the first char of the literal
+     * @param end offset after its last char
+     * @param out
+     */
+    void literal(CharSequence text, int start, int end, StringBuilder out);
+
+    /**
+     * @param possessive if digits given back could not lead to a match, see
+     * {@link URLRegexBuilder#withPossessiveQuantifiers()}
+     * @param out
+     */
+    void number(boolean possessive, StringBuilder out);
+
+    /**
+     * @param excluded char the wildcard stops at, '/' inside the path and '?' in its last segment
+     * @param required if the wildcard matches at least one char
+     * @param possessive if chars given back could not lead to a match
+     * @param out
+     */
+    void wildcard(char excluded, boolean required, boolean possessive, StringBuilder out);
+
+    /**
+     * @param separator separator following a segment, "/", "/?" for an optional slash, or ""
+     * @param out
+     */
+    void separator(String separator, StringBuilder out);
+
+    /**
+     * Start a run of optional segments.
+     * @param out
+     */
+    void optionalStart(StringBuilder out);
+
+    /**
+     * End a run of optional segments.
+     * @param out
+     * @param start length of out right after {@link #optionalStart(StringBuilder)}
+     */
+    void optionalEnd(StringBuilder out, int start);
+
+    /**
+     * @param queries query parameters of the model, not empty
+     * @param optional if some url had no query
+     * @param possessive if the query should be matched without backtracking, see
+     * {@link URLRegexBuilder#withPossessiveQuantifiers()}
+     * @param out
+     */
+    void queries(QueryModel queries, boolean optional, boolean possessive, StringBuilder out);
+
+    /**
+     * End the pattern.
+     * @param out
+     */
+    void end(StringBuilder out);
+}
@@ -0,0 +1,167 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.util.List;
+
+/**
+ * Writes a generalized model in a {@link PatternDialect}, walking its segments once into a single builder. Segment
+ * contents are scanned char by char: runs of literal text are handed to the dialect as offsets of the content, while
+ * the * and + wildcards and NUM numbers left by {@link URLRegex#generalizeStep(String, String)} become wildcards and
+ * numbers of the dialect.
+ */
+final class PatternEmitter {
+
+    private static final String NUMBER_PART = "NUM";
+
+    /**
+     * Text following a wildcard or number is the end of the url
+     */
+    private static final int END = -1;
+
+    /**
+     * Text following a wildcard or number varies
+     */
+    private static final int ANY = 0;
+
+    private PatternEmitter() {
+    }
+
+    /**
+     * @param generalized generalized url segments
+     * @param queries query parameters discovered on the urls
+     * @param queriesOptional whether some url had no query part
+     * @param allowsHttp whether some url used the http protocol
+     * @param allowsSSL whether some url used the https protocol
+     * @param possessive if wildcards and numbers followed by a character they cannot match should be possessive
+     * @param dialect
+     * @return the pattern
+     */
+    static String emit(List<URLSegment> generalized, QueryModel queries, boolean queriesOptional, boolean allowsHttp,
+                       boolean allowsSSL, boolean possessive, PatternDialect dialect) {
+
+        StringBuilder out = new StringBuilder(64);
+        dialect.protocol(allowsHttp, allowsSSL, out);
+
+        // Without queries, the last segment ends the url
+        boolean hasQueries = !queries.isEmpty();
+        boolean endsPattern = possessive && !hasQueries;
+
+        // Consecutive optional segments share one group, closed with the separator of the last one
+        int group = -1;
+        final int size = generalized.size();
+        for (int i = 0; i < size; i++) {
+            URLSegment part = generalized.get(i);
+            boolean last = i == size - 1;
+            if (part.isOptional() && group < 0) {
+                dialect.optionalStart(out);
+                group = out.length();
+            }
+
+            String token = i == 0 ? URLRegex.reverseDomainToken(part.getContent()) : part.getContent();
+            token(token, part.getSeparator(), last, last && endsPattern, possessive, dialect, out);
+
+            if (group >= 0 && !last && !generalized.get(i + 1).isOptional()) {
+                dialect.separator(part.getSeparator(), out);
+                dialect.optionalEnd(out, group);
+                group = -1;
+            } else {
+                if (group >= 0 && last) {
+                    dialect.optionalEnd(out, group);
+                    group = -1;
+                }
+                dialect.separator(part.getSeparator(), out);
+            }
+        }
+
+        if (hasQueries)
+            dialect.queries(queries, queriesOptional, possessive, out);
+        dialect.end(out);
+        return out.toString();
+    }
+
+    /**
+     * Write the content of a segment.
+     * @param token content of the segment, with its host labels in url order
+     * @param separator separator following the segment
+     * @param last if the segment is the last one
+     * @param endsPattern if nothing but the end of the url follows the segment
+     * @param possessive if wildcards and numbers followed by a character they cannot match should be possessive
+     */
+    private static void token(String token, String separator, boolean last, boolean endsPattern, boolean possessive,
+                              PatternDialect dialect, StringBuilder out) {
+        final int length = token.length();
+        int literal = 0;
+        int i = 0;
+        while (i < length) {
+            int end = markerEnd(token, i);
+            if (end < 0) {
+                i++;
+                continue;
+            }
+
+            if (literal < i)
+                dialect.literal(token, literal, i, out);
+
+            char marker = token.charAt(i);
+            boolean possessiveMarker = possessive &&
+                isPossessive(marker, last, followingChar(token, end, separator, endsPattern));
+            if (marker == 'N')
+                dialect.number(possessiveMarker, out);
+            else
+                dialect.wildcard(last ? '?' : '/', marker == '+', possessiveMarker, out);
+
+            i = end;
+            literal = end;
+        }
+
+        if (literal < length)
+            dialect.literal(token, literal, length, out);
+    }
+
+    /**
+     * @return offset after the wildcard or number starting at offset i, or -1 if there is none
+     */
+    private static int markerEnd(String token, int i) {
+        char c = token.charAt(i);
+        if (c == '*' || c == '+')
+            return i + 1;
+        if (c == 'N' && token.startsWith(NUMBER_PART, i))
+            return i + NUMBER_PART.length();
+        return -1;
+    }
+
+    /**
+     * @param token content of the segment
+     * @param i offset after a wildcard or number
+     * @param separator separator following the segment
+     * @param endsPattern if nothing but the end of the url follows the segment
+     * @return first character of the text always following offset i, END for the end of the url, or ANY if it varies
+     */
+    private static int followingChar(String token, int i, String separator, boolean endsPattern) {
+        if (i < token.length())
+            return markerEnd(token, i) < 0 ? token.charAt(i) : ANY;
+
+        if (separator.equals("/"))
+            return '/';
+        if (separator.isEmpty() && endsPattern)
+            return END;
+        return ANY;
+    }
+
+    /**
+     * @param marker '*' or '+' for a wildcard, 'N' for a number
+     * @param last if the marker belongs to the last segment
+     * @param followedBy first character always following the marker, END for the end of the url, or ANY if it varies
+     * @return if the marker cannot match followedBy, so that it may be possessive
+     */
+    private static boolean isPossessive(char marker, boolean last, int followedBy) {
+        if (followedBy == ANY)
+            return false;
+        if (followedBy == END)
+            return true;
+        if (marker == 'N')
+            return !Character.isDigit((char) followedBy);
+        return followedBy == (last ? '?' : '/');
+    }
+}
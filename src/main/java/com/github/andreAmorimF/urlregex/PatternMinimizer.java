@@ -0,0 +1,85 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rewrites generalized segments into smaller ones accepting the same urls, before they are emitted. Folding leaves
+ * pieces which another piece already covers:
+ * <ul>
+ * <li>optional wildcards next to other wildcards, [^/]*[^/]+ being [^/]+,</li>
+ * <li>an optional slash after the wildcard ending the last segment, which matches slashes itself,</li>
+ * <li>an optional segment matching the empty string anyway, a wildcard with an optional separator.</li>
+ * </ul>
+ */
+final class PatternMinimizer {
+
+    private PatternMinimizer() {
+    }
+
+    /**
+     * @param generalized generalized url segments, left untouched
+     * @return segments accepting the same urls, the given list if nothing could be removed
+     */
+    static List<URLSegment> minimize(List<URLSegment> generalized) {
+        List<URLSegment> minimized = null;
+        final int size = generalized.size();
+        for (int i = 0; i < size; i++) {
+            URLSegment segment = generalized.get(i);
+            boolean last = i == size - 1;
+
+            String content = mergeWildcards(segment.getContent());
+            String separator = segment.getSeparator();
+            boolean optional = segment.isOptional();
+
+            // [^?]* and [^?]+ already match a trailing slash, the host being emitted with its labels in url order
+            if (last && !optional && separator.equals("/?") &&
+                endsWithWildcard(i == 0 ? URLRegex.reverseDomainToken(content) : content))
+                separator = "";
+
+            // Alone in its group, a segment matching the empty string needs no group. Consecutive optional segments
+            // share one group, which cannot be split.
+            if (optional && content.equals("*") && !separator.equals("/") &&
+                (i == 0 || !generalized.get(i - 1).isOptional()) && (last || !generalized.get(i + 1).isOptional()))
+                optional = false;
+
+            if (minimized == null && (!content.equals(segment.getContent()) ||
+                !separator.equals(segment.getSeparator()) || optional != segment.isOptional())) {
+                minimized = new ArrayList<>(generalized.subList(0, i));
+            }
+            if (minimized != null)
+                minimized.add(new URLSegment(content, separator, optional));
+        }
+        return minimized == null ? generalized : minimized;
+    }
+
+    /**
+     * @return the content with each optional wildcard next to another wildcard removed, [^/]+[^/]+ needing two
+     * characters
+     */
+    static String mergeWildcards(String content) {
+        StringBuilder merged = new StringBuilder(content.length());
+        final int length = content.length();
+        for (int i = 0; i < length; i++) {
+            char c = content.charAt(i);
+            int previous = merged.length() - 1;
+            if (!isWildcard(c) || previous < 0 || !isWildcard(merged.charAt(previous)))
+                merged.append(c);
+            else if (merged.charAt(previous) == '*')
+                merged.setCharAt(previous, c);
+            else if (c == '+')
+                merged.append(c);
+        }
+        return merged.length() == length ? content : merged.toString();
+    }
+
+    private static boolean endsWithWildcard(String content) {
+        return !content.isEmpty() && isWildcard(content.charAt(content.length() - 1));
+    }
+
+    private static boolean isWildcard(char c) {
+        return c == '*' || c == '+';
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Set of learned patterns, typically one per site, which tests an url only against the patterns of its host. Patterns
+ * are indexed in a trie of host labels, top level domain first, as in the host segment of their model: a pattern
+ * whose host is literal, such as www.domain.com, sits at the node of its last label and is only tested for that host,
+ * while a generalized host, such as [^/]+.domain.com, sits at the node of its literal labels and is tested for every
+ * host below it. Finding the patterns of an url takes one lookup per label of its host.
+ *
+ * Patterns are added from a single thread; once built, a set can be matched from any number of threads.
+ *
+ * @param <K> keys of the patterns, such as site names
+ */
+public final class PatternSet<K> implements URLMatcher {
+
+    private static final class Entry<K> {
+
+        final K key;
+        final Pattern pattern;
+
+        Entry(K key, Pattern pattern) {
+            this.key = key;
+            this.pattern = pattern;
+        }
+    }
+
+    /**
+     * Node of the trie, with its children in an open addressing table looked up by region of an url
+     */
+    private static final class Node<K> {
+
+        String[] labels = new String[4];
+        Node<K>[] children = newNodes(4);
+        int size = 0;
+
+        /**
+         * Patterns whose host ends with the labels leading to this node
+         */
+        final List<Entry<K>> exact = new ArrayList<>(1);
+
+        /**
+         * Patterns whose host has more labels, generalized, in front of the labels leading to this node
+         */
+        final List<Entry<K>> below = new ArrayList<>(1);
+
+        Node<K> child(CharSequence host, int start, int end) {
+            int mask = labels.length - 1;
+            for (int slot = hash(host, start, end) & mask; labels[slot] != null; slot = (slot + 1) & mask) {
+                String label = labels[slot];
+                if (label.length() == end - start && regionMatches(host, start, label))
+                    return children[slot];
+            }
+            return null;
+        }
+
+        Node<K> addChild(String label) {
+            Node<K> child = child(label, 0, label.length());
+            if (child != null)
+                return child;
+
+            if (2 * (size + 1) > labels.length)
+                resize(2 * labels.length);
+
+            child = new Node<>();
+            put(label, child);
+            size++;
+            return child;
+        }
+
+        private void put(String label, Node<K> child) {
+            int mask = labels.length - 1;
+            int slot = hash(label, 0, label.length()) & mask;
+            while (labels[slot] != null)
+                slot = (slot + 1) & mask;
+            labels[slot] = label;
+            children[slot] = child;
+        }
+
+        private void resize(int capacity) {
+            String[] oldLabels = labels;
+            Node<K>[] oldChildren = children;
+            labels = new String[capacity];
+            children = newNodes(capacity);
+            for (int i = 0; i < oldLabels.length; i++) {
+                if (oldLabels[i] != null)
+                    put(oldLabels[i], oldChildren[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <K> Node<K>[] newNodes(int capacity) {
+            return (Node<K>[]) new Node<?>[capacity];
+        }
+
+        private static int hash(CharSequence text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean regionMatches(CharSequence text, int start, String label) {
+            for (int i = 0; i < label.length(); i++) {
+                if (text.charAt(start + i) != label.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private final Node<K> root = new Node<>();
+    private int size = 0;
+
+    /**
+     * Add the pattern of a model.
+     * @param key returned by {@link #match(CharSequence)} for the urls of the pattern
+     * @param model
+     * @return this set
+     */
+    public PatternSet<K> add(K key, URLModel model) {
+        return add(key, model, model.toPattern());
+    }
+
+    /**
+     * Add the pattern of a model, compiled as needed, for instance in possessive form.
+     * @param key returned by {@link #match(CharSequence)} for the urls of the pattern
+     * @param model model the pattern was emitted from, giving its host
+     * @param pattern
+     * @return this set
+     */
+    public PatternSet<K> add(K key, URLModel model, Pattern pattern) {
+        List<URLSegment> segments = model.getSegments();
+        String host = segments.isEmpty() || segments.get(0).isOptional() ? "" : segments.get(0).getContent();
+        String[] labels = host.isEmpty() ? new String[0] : host.split("\\.", -1);
+
+        // Only literal labels lead to a node
+        Node<K> node = root;
+        int literals = 0;
+        while (literals < labels.length && isLiteral(labels[literals])) {
+            node = node.addChild(labels[literals]);
+            literals++;
+        }
+
+        // Patterns without a host, or whose host wildcard may also match slashes when there is no path, match any host
+        Entry<K> entry = new Entry<>(key, pattern);
+        if (labels.length == 0 || (literals < labels.length && segments.size() == 1))
+            root.below.add(entry);
+        else if (literals == labels.length)
+            node.exact.add(entry);
+        else
+            node.below.add(entry);
+        size++;
+        return this;
+    }
+
+    private static boolean isLiteral(String label) {
+        return !label.isEmpty() && label.indexOf('*') < 0 && label.indexOf('+') < 0 && !label.contains("NUM");
+    }
+
+    /**
+     * @param url
+     * @return key of the first pattern added among the most specific ones matching the url, or null if none does
+     */
+    public K match(CharSequence url) {
+        Entry<K> entry = find(url, null);
+        return entry == null ? null : entry.key;
+    }
+
+    @Override
+    public boolean matches(CharSequence url) {
+        return find(url, null) != null;
+    }
+
+    /**
+     * @param url
+     * @return keys of the patterns the url would be tested against, most specific first
+     */
+    List<K> candidates(CharSequence url) {
+        List<K> candidates = new ArrayList<>();
+        find(url, candidates);
+        return candidates;
+    }
+
+    /**
+     * @return number of patterns in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Walk the labels of the host of the url from its end, then test the patterns of the host, most specific first.
+     */
+    private Entry<K> find(CharSequence url, List<K> candidates) {
+        final int length = url.length();
+        int start = URLTokenizer.pathStart(url);
+        int end = start;
+        while (end < length && url.charAt(end) != '/' && url.charAt(end) != '?')
+            end++;
+        while (end > start && url.charAt(end - 1) == '.')
+            end--;
+
+        // Nodes on the path of the host, the last one being its own if all its labels are known
+        List<Node<K>> path = new ArrayList<>(4);
+        Node<K> node = root;
+        path.add(node);
+        int labelEnd = end;
+        while (labelEnd > start) {
+            int labelStart = labelEnd - 1;
+            while (labelStart >= start && url.charAt(labelStart) != '.')
+                labelStart--;
+
+            node = node.child(url, labelStart + 1, labelEnd);
+            if (node == null)
+                break;
+            path.add(node);
+            labelEnd = labelStart;
+        }
+
+        if (node != null) {
+            Entry<K> entry = find(url, path.get(path.size() - 1).exact, candidates);
+            if (entry != null)
+                return entry;
+        }
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Entry<K> entry = find(url, path.get(i).below, candidates);
+            if (entry != null)
+                return entry;
+        }
+        return null;
+    }
+
+    private Entry<K> find(CharSequence url, List<Entry<K>> entries, List<K> candidates) {
+        for (Entry<K> entry : entries) {
+            if (candidates != null)
+                candidates.add(entry.key);
+            else if (entry.pattern.matcher(url).matches())
+                return entry;
+        }
+        return null;
+    }
+}
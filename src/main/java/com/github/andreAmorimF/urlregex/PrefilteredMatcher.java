@@ -0,0 +1,212 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matcher of a learned model which rejects most non matching urls without running the regex. The literals every
+ * matching url contains, in order, are extracted from the model: the protocol, the host, the fixed segments and the
+ * prefixes and suffixes kept around wildcards and numbers. An url lacking one of them is rejected with a few
+ * {@code regionMatches} and {@code indexOf} like scans, the others are tested against the regex.
+ *
+ * Instances are immutable and thread safe.
+ */
+public final class PrefilteredMatcher implements URLMatcher {
+
+    private final Pattern pattern;
+
+    /**
+     * Literals required in order, each one after the end of the previous one
+     */
+    private final String[] literals;
+
+    /**
+     * If the first literal starts the url and the last one ends it
+     */
+    private final boolean anchoredStart;
+    private final boolean anchoredEnd;
+
+    PrefilteredMatcher(Pattern pattern, List<String> literals, boolean anchoredStart, boolean anchoredEnd) {
+        this.pattern = pattern;
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.anchoredStart = anchoredStart && !literals.isEmpty();
+        this.anchoredEnd = anchoredEnd && !literals.isEmpty();
+    }
+
+    /**
+     * @param model
+     * @return matcher accepting the same urls as the regex of the model
+     */
+    public static PrefilteredMatcher of(URLModel model) {
+        return of(model, model.toPattern());
+    }
+
+    /**
+     * @param model
+     * @param pattern regex of the model, possibly in possessive form
+     * @return matcher accepting the same urls as the regex
+     */
+    static PrefilteredMatcher of(URLModel model, Pattern pattern) {
+        List<String> pieces = new ArrayList<>();
+
+        // Pieces of text each match has, with null for the parts of the regex matching variable text
+        if (model.allowsHttp() && model.allowsSSL()) {
+            pieces.add("http");
+            pieces.add(null);
+            pieces.add("://");
+        } else if (model.allowsSSL()) {
+            pieces.add("https://");
+        } else if (model.allowsHttp()) {
+            pieces.add("http://");
+        } else {
+            pieces.add(null);
+        }
+
+        List<URLSegment> segments = model.getSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            URLSegment segment = segments.get(i);
+            if (segment.isOptional()) {
+                pieces.add(null);
+                continue;
+            }
+
+            String token = segment.getContent();
+            if (i == 0)
+                token = URLRegex.reverseDomainToken(token);
+            for (String part : token.split("((?<=\\*)|(?=\\*)|(?<=\\+)|(?=\\+)|(?<=NUM)|(?=NUM))")) {
+                if (part.equals("*") || part.equals("+") || part.equals("NUM"))
+                    pieces.add(null);
+                else if (!part.isEmpty())
+                    pieces.add(part);
+            }
+
+            String separator = segment.getSeparator();
+            if (separator.endsWith("?"))
+                pieces.add(null);
+            else if (!separator.isEmpty())
+                pieces.add(separator);
+        }
+
+        if (!model.getQueries().isEmpty())
+            pieces.add(null);
+
+        // Join consecutive pieces of text into literals
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (String piece : pieces) {
+            if (piece != null) {
+                literal.append(piece);
+            } else if (literal.length() > 0) {
+                literals.add(literal.toString());
+                literal.setLength(0);
+            }
+        }
+        if (literal.length() > 0)
+            literals.add(literal.toString());
+
+        return new PrefilteredMatcher(pattern, literals, pieces.get(0) != null,
+            pieces.get(pieces.size() - 1) != null);
+    }
+
+    @Override
+    public boolean matches(CharSequence url) {
+        return accepts(url) && pattern.matcher(url).matches();
+    }
+
+    /**
+     * Test all urls, reusing the same regex matcher for the urls passing the prefilter.
+     * @param urls
+     * @return for each url, if it is accepted
+     */
+    public boolean[] matchAll(List<? extends CharSequence> urls) {
+        boolean[] results = new boolean[urls.size()];
+        Matcher matcher = null;
+        for (int i = 0; i < results.length; i++) {
+            CharSequence url = urls.get(i);
+            if (!accepts(url))
+                continue;
+
+            if (matcher == null)
+                matcher = pattern.matcher(url);
+            else
+                matcher.reset(url);
+            results[i] = matcher.matches();
+        }
+        return results;
+    }
+
+    /**
+     * @param url
+     * @return false if the url lacks a required literal, and so cannot match
+     */
+    boolean accepts(CharSequence url) {
+        final int length = url.length();
+        int pos = 0;
+        for (int k = 0; k < literals.length; k++) {
+            String literal = literals[k];
+            if (k == 0 && anchoredStart) {
+                if (!regionMatches(url, 0, literal))
+                    return false;
+                pos = literal.length();
+            } else if (k == literals.length - 1 && anchoredEnd) {
+                int start = length - literal.length();
+                return start >= pos && regionMatches(url, start, literal);
+            } else {
+                int found = indexOf(url, literal, pos);
+                if (found < 0)
+                    return false;
+                pos = found + literal.length();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return literals every matching url contains, in this order
+     */
+    public List<String> requiredLiterals() {
+        List<String> result = new ArrayList<>(literals.length);
+        Collections.addAll(result, literals);
+        return result;
+    }
+
+    /**
+     * @return the regex urls passing the prefilter are tested against
+     */
+    public Pattern pattern() {
+        return pattern;
+    }
+
+    @Override
+    public String toString() {
+        return pattern.pattern();
+    }
+
+    private static boolean regionMatches(CharSequence url, int start, String literal) {
+        if (start < 0 || start + literal.length() > url.length())
+            return false;
+
+        for (int i = 0; i < literal.length(); i++) {
+            if (url.charAt(start + i) != literal.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static int indexOf(CharSequence url, String literal, int from) {
+        if (url instanceof String)
+            return ((String) url).indexOf(literal, from);
+
+        char first = literal.charAt(0);
+        for (int i = from, last = url.length() - literal.length(); i <= last; i++) {
+            if (url.charAt(i) == first && regionMatches(url, i, literal))
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,193 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matcher of a learned model which only runs the regex on the part of urls before their query. The query is scanned
+ * once, looking parameter names up in a hash set instead of trying each name of the regex alternation in turn, so
+ * that its cost does not grow with the number of parameter names of the model.
+ *
+ * Urls whose query starts with a question mark are accepted this way. The regex of the model also accepts queries
+ * without question mark, and names without value swallowing the end of the path, which can only be told apart by
+ * trying every way to split the url: urls the scan rejects are matched with the whole regex, in possessive form, so
+ * that the matcher accepts the same urls as the regex. Instances are immutable and thread safe.
+ */
+public final class QueryKeyMatcher implements URLMatcher {
+
+    /**
+     * Regex of the protocol and segments, or of the whole url if the model has no query parameter
+     */
+    private final Pattern path;
+
+    /**
+     * Regex of the whole url, for the urls whose query cannot be split at a question mark
+     */
+    private final Pattern full;
+
+    private final KeySet valuedKeys;
+    private final boolean hasQueries;
+    private final boolean hasBare;
+    private final boolean queriesOptional;
+
+    /**
+     * @param model
+     */
+    QueryKeyMatcher(URLModel model) {
+        QueryModel queries = model.getQueryModel();
+        this.path = URLRegex.buildPattern(model.getSegments(), new QueryModel(), false, model.allowsHttp(),
+            model.allowsSSL(), true);
+        this.full = model.toPattern(true);
+        this.valuedKeys = new KeySet(queries.valuedKeys());
+        this.hasQueries = !queries.isEmpty();
+        this.hasBare = queries.hasBare();
+        this.queriesOptional = model.isQueryOptional();
+    }
+
+    @Override
+    public boolean matches(CharSequence url) {
+        if (!hasQueries)
+            return path.matcher(url).matches();
+
+        // Wildcards of the path may match question marks too, so the query may start at any of them
+        final int length = url.length();
+        Matcher matcher = null;
+        for (int split = URLTokenizer.pathStart(url); split < length; split++) {
+            if (url.charAt(split) != '?' || !acceptsQuery(url, split + 1, length))
+                continue;
+
+            matcher = matcher == null ? path.matcher(url) : matcher;
+            if (matcher.region(0, split).matches())
+                return true;
+        }
+        if (queriesOptional && (matcher == null ? path.matcher(url) : matcher.reset()).matches())
+            return true;
+        return full.matcher(url).matches();
+    }
+
+    /**
+     * Same language as the query part of the regex: the first parameter may start with a delimiter, may have no value
+     * and may be preceded by names without value; the others start with a delimiter and have a value.
+     * @param url
+     * @param start start of the query, after its question mark
+     * @param end end of the query
+     * @return if the regex of the model accepts the query
+     */
+    private boolean acceptsQuery(CharSequence url, int start, int end) {
+        // A name without value may be the question mark itself
+        if (start == end)
+            return queriesOptional || hasBare;
+
+        int pos = start;
+        while (pos < end) {
+            boolean delimited = isDelimiter(url.charAt(pos));
+            if (delimited)
+                pos++;
+
+            int equals = -1;
+            int runEnd = pos;
+            for (; runEnd < end; runEnd++) {
+                char c = url.charAt(runEnd);
+                if (isDelimiter(c))
+                    break;
+                if (c == '=' && equals < 0)
+                    equals = runEnd;
+            }
+
+            if (equals < 0) {
+                if (delimited || !hasBare || runEnd == pos)
+                    return false;
+            } else {
+                if (equals + 1 == runEnd)
+                    return false;
+                if (!valuedKeys.contains(url, pos, equals) &&
+                    (delimited || !hasBare || !valuedKeys.containsSuffix(url, pos + 1, equals)))
+                    return false;
+            }
+            pos = runEnd;
+        }
+        return true;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == '&' || c == ';';
+    }
+
+    @Override
+    public String toString() {
+        return path.pattern();
+    }
+
+    /**
+     * Open addressing hash set of names, looked up by region of an url with the hash of {@link String#hashCode()}
+     */
+    private static final class KeySet {
+
+        private final String[] slots;
+        private final int maxLength;
+
+        KeySet(List<String> keys) {
+            int capacity = Integer.highestOneBit(Math.max(1, keys.size()) * 4 - 1) << 1;
+            slots = new String[capacity];
+
+            int longest = 0;
+            for (String key : keys) {
+                int slot = spread(key.hashCode()) & (capacity - 1);
+                while (slots[slot] != null && !slots[slot].equals(key))
+                    slot = (slot + 1) & (capacity - 1);
+                slots[slot] = key;
+                longest = Math.max(longest, key.length());
+            }
+            maxLength = longest;
+        }
+
+        boolean contains(CharSequence url, int start, int end) {
+            if (end - start > maxLength || end == start)
+                return false;
+
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + url.charAt(i);
+            }
+            return contains(url, start, end, hash);
+        }
+
+        /**
+         * @return if the text between some position of [from, end) and end is a name
+         */
+        boolean containsSuffix(CharSequence url, int from, int end) {
+            int hash = 0;
+            int power = 1;
+            for (int i = end - 1; i >= from && end - i <= maxLength; i--) {
+                hash += url.charAt(i) * power;
+                power *= 31;
+                if (contains(url, i, end, hash))
+                    return true;
+            }
+            return false;
+        }
+
+        private boolean contains(CharSequence url, int start, int end, int hash) {
+            int mask = slots.length - 1;
+            for (int slot = spread(hash) & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+                String key = slots[slot];
+                if (key.length() == end - start && regionMatches(url, start, key))
+                    return true;
+            }
+            return false;
+        }
+
+        private static boolean regionMatches(CharSequence url, int start, String key) {
+            for (int i = 0; i < key.length(); i++) {
+                if (url.charAt(start + i) != key.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
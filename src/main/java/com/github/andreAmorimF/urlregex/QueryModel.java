@@ -0,0 +1,395 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Query parameters of the urls a model was learned from: for each parameter name, in discovery order, the number of
+ * queries it appeared in, whether it was seen with a value, without one, and the type of its values. Parameters are
+ * compared by name regardless of their order in the url.
+ *
+ * Only the builder owning it changes a query model; the ones handed out by {@link URLModel} are never changed.
+ */
+public final class QueryModel {
+
+    /**
+     * Most specific type of all values seen for a parameter
+     */
+    public enum ValueType {
+
+        /**
+         * Only digits
+         */
+        NUMERIC,
+
+        /**
+         * Only ASCII letters and digits
+         */
+        ALNUM,
+
+        /**
+         * Anything else
+         */
+        FREE;
+
+        /**
+         * @param c next char of a value of this type
+         * @return type of the value with c
+         */
+        ValueType widen(char c) {
+            if (this == NUMERIC && c >= '0' && c <= '9')
+                return NUMERIC;
+            if (this != FREE && (c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z'))
+                return ALNUM;
+            return FREE;
+        }
+
+        ValueType widen(ValueType other) {
+            return compareTo(other) >= 0 ? this : other;
+        }
+    }
+
+    private static final class Parameter {
+
+        /**
+         * Number of queries the parameter appeared in
+         */
+        int count;
+
+        boolean valued;
+        boolean bare;
+
+        /**
+         * Type of its values, or null if it never had one
+         */
+        ValueType type;
+
+        /**
+         * Number of the last query it appeared in, so that repeated parameters are counted once
+         */
+        int lastQuery;
+
+        Parameter copy() {
+            Parameter copy = new Parameter();
+            copy.count = count;
+            copy.valued = valued;
+            copy.bare = bare;
+            copy.type = type;
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Parameter parameter = (Parameter) o;
+            return count == parameter.count && valued == parameter.valued && bare == parameter.bare &&
+                type == parameter.type;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = count;
+            result = 31 * result + (valued ? 1 : 0);
+            result = 31 * result + (bare ? 1 : 0);
+            result = 31 * result + (type != null ? type.hashCode() : 0);
+            return result;
+        }
+    }
+
+    private final Map<String, Parameter> parameters = new LinkedHashMap<>();
+    private int queriesCount = 0;
+
+    QueryModel() {
+    }
+
+    QueryModel(QueryModel other) {
+        for (Map.Entry<String, Parameter> entry : other.parameters.entrySet()) {
+            parameters.put(entry.getKey(), entry.getValue().copy());
+        }
+        queriesCount = other.queriesCount;
+    }
+
+    /**
+     * Start the parameters of a new query.
+     */
+    void query() {
+        queriesCount++;
+    }
+
+    /**
+     * Add a parameter of the current query.
+     * @param key parameter name
+     * @param type type of its value, or null if it has none
+     * @return if the regex of the model changed: the name is new, or is now seen with or without value for the first
+     * time
+     */
+    boolean add(String key, ValueType type) {
+        Parameter parameter = parameters.get(key);
+        boolean changed = false;
+        if (parameter == null) {
+            parameter = new Parameter();
+            parameters.put(key, parameter);
+            changed = true;
+        }
+
+        if (parameter.lastQuery != queriesCount) {
+            parameter.lastQuery = queriesCount;
+            parameter.count++;
+        }
+
+        if (type == null) {
+            changed |= !parameter.bare;
+            parameter.bare = true;
+        } else {
+            changed |= !parameter.valued;
+            parameter.valued = true;
+            parameter.type = parameter.type == null ? type : parameter.type.widen(type);
+        }
+        return changed;
+    }
+
+    /**
+     * Add the parameters of the queries of another model, after the ones of this model.
+     * @param other
+     */
+    void merge(QueryModel other) {
+        for (Map.Entry<String, Parameter> entry : other.parameters.entrySet()) {
+            Parameter theirs = entry.getValue();
+            Parameter parameter = parameters.get(entry.getKey());
+            if (parameter == null) {
+                parameters.put(entry.getKey(), theirs.copy());
+                continue;
+            }
+
+            parameter.count += theirs.count;
+            parameter.valued |= theirs.valued;
+            parameter.bare |= theirs.bare;
+            if (theirs.type != null)
+                parameter.type = parameter.type == null ? theirs.type : parameter.type.widen(theirs.type);
+        }
+        queriesCount += other.queriesCount;
+    }
+
+    /**
+     * @return number of urls having a query, even an empty one
+     */
+    public int queriesCount() {
+        return queriesCount;
+    }
+
+    /**
+     * @return parameter names, in discovery order
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(parameters.keySet());
+    }
+
+    public boolean isEmpty() {
+        return parameters.isEmpty();
+    }
+
+    /**
+     * @param key parameter name
+     * @return number of queries the parameter appeared in, 0 if unknown
+     */
+    public int count(String key) {
+        Parameter parameter = parameters.get(key);
+        return parameter == null ? 0 : parameter.count;
+    }
+
+    /**
+     * @param key parameter name
+     * @return if the parameter appeared in every query
+     */
+    public boolean isRequired(String key) {
+        Parameter parameter = parameters.get(key);
+        return parameter != null && parameter.count == queriesCount;
+    }
+
+    /**
+     * @param key parameter name
+     * @return if the parameter was seen with a non empty value
+     */
+    public boolean isValued(String key) {
+        Parameter parameter = parameters.get(key);
+        return parameter != null && parameter.valued;
+    }
+
+    /**
+     * @param key parameter name
+     * @return type of all values of the parameter, or null if it never had one
+     */
+    public ValueType valueType(String key) {
+        Parameter parameter = parameters.get(key);
+        return parameter == null ? null : parameter.type;
+    }
+
+    /**
+     * @return parameter names, in discovery order, with if they were seen with a non empty value
+     */
+    Map<String, Boolean> toMap() {
+        Map<String, Boolean> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Parameter> entry : parameters.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().valued);
+        }
+        return map;
+    }
+
+    /**
+     * @return names of the parameters seen with a value, in discovery order
+     */
+    List<String> valuedKeys() {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Parameter> entry : parameters.entrySet()) {
+            if (entry.getValue().valued)
+                keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * @return if some parameter was seen without value
+     */
+    boolean hasBare() {
+        for (Parameter parameter : parameters.values()) {
+            if (parameter.bare)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Regex of the query parameters: the parameters with a value by name, and any name without value.
+     * @param queriesOptional whether some url had no query part
+     * @return regex string matching the query part, to append to the regex of the segments
+     */
+    String toRegex(boolean queriesOptional) {
+        // Names with a value share their delimiter and value in one alternative, grouping their names without capture
+        List<String> alternatives = new ArrayList<>();
+        List<String> valueKeys = valuedKeys();
+        if (valueKeys.size() == 1)
+            alternatives.add("[&;]?" + valueKeys.get(0) + "=[^&;]+");
+        else if (!valueKeys.isEmpty())
+            alternatives.add("[&;]?(?:" + StringUtils.join(valueKeys, "|") + ")=[^&;]+");
+        if (hasBare())
+            alternatives.add("[^&;=]+");
+
+        return "\\??(" + StringUtils.join(alternatives, "|") + (queriesOptional ? ")*" : ")+");
+    }
+
+    /**
+     * Same as {@link #toRegex(boolean)}, in possessive form. Parameter values run up to the next delimiter, so once a
+     * parameter name is found its value is matched possessively and the parameter atomically. Names without value are
+     * split from the next parameter name lazily, instead of every possible way.
+     * @param queriesOptional whether some url had no query part
+     * @return regex string matching the same query parameters as {@link #toRegex(boolean)}
+     */
+    String toPossessiveRegex(boolean queriesOptional) {
+        List<String> valueKeys = valuedKeys();
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("\\??");
+
+        // Without a name having a value, delimiters never match
+        if (valueKeys.isEmpty())
+            return builder.append(queriesOptional ? "[^&;=]*+" : "[^&;=]++").toString();
+
+        String keys = "(?:" + StringUtils.join(valueKeys, "|") + ")=[^&;]++";
+        if (queriesOptional)
+            builder.append("(?:");
+
+        // Only the first parameter may lack a delimiter, and be preceded by names without value
+        builder.append("(?>[&;]?").append(keys);
+        if (hasBare())
+            builder.append("|[^&;=]+?").append(keys).append("|[^&;=]++");
+        builder.append(")(?>[&;]").append(keys).append(")*+");
+
+        if (queriesOptional)
+            builder.append(")?");
+        return builder.toString();
+    }
+
+    /**
+     * Write the parameters, the number of queries being written by the model.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(parameters.size());
+        for (Map.Entry<String, Parameter> entry : parameters.entrySet()) {
+            Parameter parameter = entry.getValue();
+            URLModel.writeString(out, entry.getKey());
+            out.writeInt(parameter.count);
+            out.writeBoolean(parameter.valued);
+            out.writeBoolean(parameter.bare);
+            out.writeByte(parameter.type == null ? -1 : parameter.type.ordinal());
+        }
+    }
+
+    /**
+     * @param in
+     * @param version version of the model, the first one only having the names with if they had a value
+     * @param queriesCount number of queries, read by the model
+     * @return the parameters
+     * @throws IOException
+     */
+    static QueryModel read(DataInput in, int version, int queriesCount) throws IOException {
+        QueryModel model = new QueryModel();
+        model.queriesCount = queriesCount;
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String key = URLModel.readString(in);
+            Parameter parameter = new Parameter();
+            if (version == 1) {
+                parameter.valued = in.readBoolean();
+                parameter.bare = !parameter.valued;
+                parameter.type = parameter.valued ? ValueType.FREE : null;
+            } else {
+                parameter.count = in.readInt();
+                parameter.valued = in.readBoolean();
+                parameter.bare = in.readBoolean();
+                int type = in.readByte();
+                if (type >= ValueType.values().length)
+                    throw new IOException("Corrupted url model: unknown value type " + type);
+                parameter.type = type < 0 ? null : ValueType.values()[type];
+            }
+            model.parameters.put(key, parameter);
+        }
+        return model;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        QueryModel model = (QueryModel) o;
+        return queriesCount == model.queriesCount &&
+            new ArrayList<>(parameters.entrySet()).equals(new ArrayList<>(model.parameters.entrySet()));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * parameters.hashCode() + queriesCount;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        for (Map.Entry<String, Parameter> entry : parameters.entrySet()) {
+            Parameter parameter = entry.getValue();
+            if (result.length() > 1)
+                result.append(", ");
+            result.append(entry.getKey()).append('=').append(parameter.count).append('/').append(queriesCount);
+            if (parameter.type != null)
+                result.append(' ').append(parameter.type);
+            if (parameter.bare)
+                result.append(parameter.valued ? " or bare" : " bare");
+        }
+        return result.append('}').toString();
+    }
+}
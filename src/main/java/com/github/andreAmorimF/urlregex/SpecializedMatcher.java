@@ -0,0 +1,343 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Matcher of a learned model composed at runtime from {@link MethodHandle} combinators rather than interpreted from a
+ * regex. Each piece of the model becomes a step taking the url and an offset and returning the offset after the text
+ * it matched, or -1: the protocol and the literals are bound to a char by char comparison, numbers to a scan of
+ * digits, and wildcards to a scan up to the next '/', or to the end of the url for the last segment, matching the rest
+ * of their segment backwards from there. Steps are chained with
+ * {@link MethodHandles#foldArguments(MethodHandle, MethodHandle)} and
+ * {@link MethodHandles#guardWithTest(MethodHandle, MethodHandle, MethodHandle)}, so that the JIT compiles a hot
+ * matcher into a single method of straight char comparisons with the literals as constants.
+ *
+ * Steps never backtrack, so only models whose regex has a single way of matching an url are specialized: no optional
+ * segment, no query, numbers next to a character they cannot match on the side of the wildcard, and at most one
+ * wildcard per segment, which ends with a slash or the url. Other models are matched with their regex, see
+ * {@link #isSpecialized()}.
+ *
+ * Instances are immutable and thread safe.
+ */
+public final class SpecializedMatcher implements URLMatcher {
+
+    private static final String NUMBER_PART = "NUM";
+
+    private static final MethodType STEP = MethodType.methodType(int.class, CharSequence.class, int.class);
+
+    private static final MethodHandle LITERAL;
+    private static final MethodHandle OPTIONAL;
+    private static final MethodHandle NUMBER;
+    private static final MethodHandle WILDCARD;
+    private static final MethodHandle MATCHED;
+
+    static {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            LITERAL = lookup.findStatic(SpecializedMatcher.class, "literal", STEP.insertParameterTypes(0, String.class));
+            OPTIONAL = lookup.findStatic(SpecializedMatcher.class, "optional", STEP.insertParameterTypes(0, char.class));
+            NUMBER = lookup.findStatic(SpecializedMatcher.class, "number", STEP);
+            WILDCARD = lookup.findStatic(SpecializedMatcher.class, "wildcard",
+                STEP.insertParameterTypes(0, char.class, boolean.class, String[].class));
+            MATCHED = lookup.findStatic(SpecializedMatcher.class, "matched",
+                MethodType.methodType(boolean.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Pattern pattern;
+
+    /**
+     * Composed steps of type (CharSequence, int)int, or null if the model is matched with its regex
+     */
+    private final MethodHandle matcher;
+
+    private SpecializedMatcher(Pattern pattern, MethodHandle matcher) {
+        this.pattern = pattern;
+        this.matcher = matcher;
+    }
+
+    /**
+     * @param model
+     * @return matcher accepting the same urls as the regex of the model
+     */
+    public static SpecializedMatcher of(URLModel model) {
+        return new SpecializedMatcher(model.toPattern(), compile(model));
+    }
+
+    /**
+     * @return if urls are matched by composed steps, false if they are matched with the regex of the model
+     */
+    public boolean isSpecialized() {
+        return matcher != null;
+    }
+
+    @Override
+    public boolean matches(CharSequence url) {
+        if (matcher == null)
+            return pattern.matcher(url).matches();
+
+        try {
+            return (int) matcher.invokeExact(url, 0) == url.length();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return pattern.toString();
+    }
+
+    /**
+     * @param model
+     * @return composed steps matching the urls of the model, or null if steps cannot match the same urls as its regex
+     */
+    static MethodHandle compile(URLModel model) {
+        if (!model.getQueryModel().isEmpty())
+            return null;
+
+        List<MethodHandle> steps = new ArrayList<>();
+        if (model.allowsHttp() && model.allowsSSL()) {
+            steps.add(literal("http"));
+            steps.add(optional('s'));
+            steps.add(literal("://"));
+        } else if (model.allowsSSL()) {
+            steps.add(literal("https://"));
+        } else if (model.allowsHttp()) {
+            steps.add(literal("http://"));
+        }
+
+        List<URLSegment> segments = PatternMinimizer.minimize(model.getSegments());
+        final int size = segments.size();
+        for (int i = 0; i < size; i++) {
+            URLSegment segment = segments.get(i);
+            if (segment.isOptional())
+                return null;
+
+            boolean last = i == size - 1;
+            String token = i == 0 ? URLRegex.reverseDomainToken(segment.getContent()) : segment.getContent();
+            if (!segment(token, segment.getSeparator(), last, steps))
+                return null;
+
+            // An optional slash is taken whenever present, unless the wildcard of the last segment may match it
+            if (segment.getSeparator().equals("/?") && i + 1 == size - 1) {
+                String next = segments.get(i + 1).getContent();
+                if (!next.isEmpty() && markerEnd(next, 0) == 1)
+                    return null;
+            }
+        }
+
+        // Chained from the last step, each one only running if the previous one matched
+        MethodHandle chain = MethodHandles.dropArguments(MethodHandles.identity(int.class), 0, CharSequence.class);
+        MethodHandle failed = MethodHandles.dropArguments(MethodHandles.constant(int.class, -1), 0,
+            int.class, CharSequence.class, int.class);
+        MethodHandle test = MethodHandles.dropArguments(MATCHED, 1, CharSequence.class, int.class);
+        MethodType folded = STEP.insertParameterTypes(0, int.class);
+        for (int i = steps.size() - 1; i >= 0; i--) {
+            MethodHandle next = MethodHandles.permuteArguments(chain, folded, 1, 0);
+            chain = MethodHandles.foldArguments(MethodHandles.guardWithTest(test, next, failed), steps.get(i));
+        }
+        return chain;
+    }
+
+    /**
+     * Add the steps of a segment.
+     * @param token content of the segment, with its host labels in url order
+     * @param separator separator following the segment
+     * @param last if the segment is the last one
+     * @param steps
+     * @return false if the segment cannot be matched without backtracking
+     */
+    private static boolean segment(String token, String separator, boolean last, List<MethodHandle> steps) {
+        boolean slash = separator.equals("/");
+        final int length = token.length();
+        int literal = 0;
+        int i = 0;
+        while (i < length) {
+            int end = markerEnd(token, i);
+            if (end < 0) {
+                i++;
+                continue;
+            }
+
+            if (literal < i)
+                steps.add(literal(token.substring(literal, i)));
+
+            if (token.charAt(i) == 'N') {
+                // Digits are taken up to a character which is not one
+                if (end < length) {
+                    char following = token.charAt(end);
+                    if (markerEnd(token, end) >= 0 || following >= '0' && following <= '9')
+                        return false;
+                } else if (!slash && !(last && separator.isEmpty())) {
+                    return false;
+                }
+                steps.add(NUMBER);
+            } else {
+                if (last ? separator.equals("/?") : !slash)
+                    return false;
+                String[] tail = tail(token, end, last && slash ? "/" : "");
+                if (tail == null)
+                    return false;
+                steps.add(MethodHandles.insertArguments(WILDCARD, 0, last ? '?' : '/', token.charAt(i) == '+', tail));
+                if (last)
+                    return true;
+                end = length;
+            }
+
+            i = end;
+            literal = end;
+        }
+
+        if (literal < length)
+            steps.add(literal(token.substring(literal)));
+
+        if (slash)
+            steps.add(literal("/"));
+        else if (!separator.isEmpty())
+            steps.add(optional('/'));
+        return true;
+    }
+
+    /**
+     * @param token content of the segment
+     * @param start offset after its wildcard
+     * @param separator separator ending the url after the segment, if any
+     * @return the literals following the wildcard in the segment, with null for numbers, or null if it has another
+     * wildcard or a number which may start with the wildcard
+     */
+    private static String[] tail(String token, int start, String separator) {
+        List<String> tail = new ArrayList<>();
+        final int length = token.length();
+        int literal = start;
+        int i = start;
+        while (i < length) {
+            int end = markerEnd(token, i);
+            if (end < 0) {
+                i++;
+                continue;
+            }
+
+            if (literal < i)
+                tail.add(token.substring(literal, i));
+
+            // Digits are taken back to a character which is not one
+            char previous = literal < i ? token.charAt(i - 1) : '0';
+            if (token.charAt(i) != 'N' || previous >= '0' && previous <= '9')
+                return null;
+            tail.add(null);
+
+            i = end;
+            literal = end;
+        }
+
+        if (literal < length || !separator.isEmpty())
+            tail.add(token.substring(literal) + separator);
+        return tail.toArray(new String[tail.size()]);
+    }
+
+    /**
+     * @return offset after the wildcard or number starting at offset i, or -1 if there is none
+     */
+    private static int markerEnd(String token, int i) {
+        char c = token.charAt(i);
+        if (c == '*' || c == '+')
+            return i + 1;
+        if (c == 'N' && token.startsWith(NUMBER_PART, i))
+            return i + NUMBER_PART.length();
+        return -1;
+    }
+
+    private static MethodHandle literal(String text) {
+        return MethodHandles.insertArguments(LITERAL, 0, text);
+    }
+
+    private static MethodHandle optional(char c) {
+        return MethodHandles.insertArguments(OPTIONAL, 0, c);
+    }
+
+    private static boolean matched(int offset) {
+        return offset >= 0;
+    }
+
+    private static int literal(String text, CharSequence url, int offset) {
+        final int length = text.length();
+        if (url.length() - offset < length)
+            return -1;
+        for (int i = 0; i < length; i++) {
+            if (url.charAt(offset + i) != text.charAt(i))
+                return -1;
+        }
+        return offset + length;
+    }
+
+    private static int optional(char c, CharSequence url, int offset) {
+        return offset < url.length() && url.charAt(offset) == c ? offset + 1 : offset;
+    }
+
+    private static int number(CharSequence url, int offset) {
+        final int length = url.length();
+        int i = offset;
+        while (i < length) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9')
+                break;
+            i++;
+        }
+        return i > offset ? i : -1;
+    }
+
+    /**
+     * Match a wildcard and the rest of its segment, backwards from the end of the segment.
+     * @param excluded character the wildcard cannot match, '/' to stop at the end of the segment or '?' for the last
+     * segment, which ends the url
+     * @param required if the wildcard matches at least one character
+     * @param tail literals following the wildcard in the segment, with null for numbers
+     * @return offset of the end of the segment
+     */
+    private static int wildcard(char excluded, boolean required, String[] tail, CharSequence url, int offset) {
+        int end = excluded == '/' ? indexOf(url, '/', offset, url.length()) : url.length();
+        if (end < 0)
+            return -1;
+
+        int start = end;
+        for (int i = tail.length - 1; i >= 0; i--) {
+            String text = tail[i];
+            if (text == null) {
+                int digits = start;
+                while (digits > offset && url.charAt(digits - 1) >= '0' && url.charAt(digits - 1) <= '9')
+                    digits--;
+                if (digits == start)
+                    return -1;
+                start = digits;
+            } else {
+                start -= text.length();
+                if (start < offset || literal(text, url, start) < 0)
+                    return -1;
+            }
+        }
+
+        if (start < (required ? offset + 1 : offset) || indexOf(url, excluded, offset, start) >= 0)
+            return -1;
+        return end;
+    }
+
+    private static int indexOf(CharSequence url, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (url.charAt(i) == c)
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,166 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps each distinct segment to an int id, so that segments are normalized once and compared as ints during
+ * alignment. Each id knows its canonical text and the id of its normalized form, where runs of digits are replaced by
+ * {@code NUM}. Normalized forms are ids too: two segments are equal once normalized if and only if they share the
+ * same normalized id.
+ *
+ * Distances between normalized forms are cached, as the same pairs of segments are compared again for every url
+ * folded into a model. Ids are only meant to be used during one alignment: the dictionary is emptied by
+ * {@link #trim()} once it grows past {@link #MAX_SIZE} segments. Instances are not thread safe.
+ */
+final class TokenDictionary {
+
+    /**
+     * Number of segments above which {@link #trim()} empties the dictionary
+     */
+    static final int MAX_SIZE = 1 << 16;
+
+    private static final int PAIR_CACHE_SIZE = 1 << 10;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] tokens = new String[64];
+    private int[] normals = new int[64];
+    private char[][] chars = new char[64][];
+    private int size = 0;
+
+    /**
+     * Direct mapped cache of distances between normalized ids. A key is the (ordered) pair of ids plus one, so that
+     * zero marks an empty slot. A cached distance of -1 means the distance is lower than the cached bound.
+     */
+    private final long[] pairs = new long[PAIR_CACHE_SIZE];
+    private final int[] distances = new int[PAIR_CACHE_SIZE];
+    private final int[] bounds = new int[PAIR_CACHE_SIZE];
+
+    private final EditDistance editDistance = new EditDistance();
+    private long editDistanceCount = 0;
+    private char[] scratch = new char[32];
+
+    /**
+     * @param token segment content
+     * @return id of the segment, added to the dictionary if needed
+     */
+    int intern(String token) {
+        Integer id = ids.get(token);
+        if (id != null)
+            return id;
+
+        // Segments with digits point to their normalized form, the others are their own normalized form
+        int normal = -1;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c >= '0' && c <= '9') {
+                scratch = EditDistance.ensureCapacity(scratch, EditDistance.normalizedCapacity(token));
+                normal = intern(new String(scratch, 0, EditDistance.normalize(token, scratch)));
+                break;
+            }
+        }
+
+        return add(token, normal);
+    }
+
+    private int add(String token, int normal) {
+        if (size == tokens.length) {
+            tokens = Arrays.copyOf(tokens, size * 2);
+            normals = Arrays.copyOf(normals, size * 2);
+            chars = Arrays.copyOf(chars, size * 2);
+        }
+
+        int id = size++;
+        tokens[id] = token;
+        if (normal < 0) {
+            normals[id] = id;
+            chars[id] = token.toCharArray();
+        } else {
+            normals[id] = normal;
+        }
+        ids.put(token, id);
+        return id;
+    }
+
+    /**
+     * @param id
+     * @return canonical text of the segment
+     */
+    String token(int id) {
+        return tokens[id];
+    }
+
+    /**
+     * @param id
+     * @return id of the segment with its digit runs replaced by NUM
+     */
+    int normal(int id) {
+        return normals[id];
+    }
+
+    /**
+     * @param id
+     * @return length of the segment
+     */
+    int length(int id) {
+        return tokens[id].length();
+    }
+
+    /**
+     * Levenshtein distance between two normalized segments, see {@link EditDistance#distance(int)}.
+     * @param normal1 normalized id of the first segment
+     * @param normal2 normalized id of the second segment
+     * @param atLeast smallest distance the caller is interested in
+     * @return the distance, or -1 if it is lower than atLeast
+     */
+    int distance(int normal1, int normal2, int atLeast) {
+        long key = normal1 < normal2 ? ((long) normal1 << 32 | normal2) + 1 : ((long) normal2 << 32 | normal1) + 1;
+        int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 54);
+
+        if (pairs[slot] == key) {
+            if (distances[slot] >= 0)
+                return distances[slot] < atLeast ? -1 : distances[slot];
+            if (bounds[slot] <= atLeast)
+                return -1;
+        }
+
+        char[] a = chars[normal1];
+        char[] b = chars[normal2];
+        editDistanceCount++;
+        int distance = editDistance.distance(a, a.length, b, b.length, atLeast);
+        pairs[slot] = key;
+        distances[slot] = distance;
+        bounds[slot] = atLeast;
+        return distance;
+    }
+
+    /**
+     * Empty the dictionary if it holds more than {@link #MAX_SIZE} segments. Ids given before are no longer valid.
+     */
+    void trim() {
+        if (size <= MAX_SIZE)
+            return;
+
+        ids.clear();
+        tokens = new String[64];
+        normals = new int[64];
+        chars = new char[64][];
+        size = 0;
+        Arrays.fill(pairs, 0L);
+    }
+
+    /**
+     * @return number of distances computed so far, cached ones excluded
+     */
+    long editDistanceCount() {
+        return editDistanceCount;
+    }
+
+    /**
+     * @return number of distinct segments, normalized forms included
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Append only list of urls stored as UTF-8 bytes in large shared chunks, on heap or off heap, each url being referenced
+ * by its offset and length only. Holding a corpus takes about its size in bytes plus 12 bytes per url, instead of a
+ * String object and twice its size in chars per url.
+ *
+ * Urls are mostly ASCII: {@link #get(int)} returns those as views over their bytes, which the tokenizer scans without
+ * copying them, while the others are decoded. As only the segments of an url are copied when it is folded, building
+ * from an arena, sequentially or with {@link URLRegex#buildPattern(URLArena, java.util.concurrent.ForkJoinPool)},
+ * keeps the corpus in the arena only. Urls are added from a single thread; once filled, an arena can be read from any
+ * number of threads.
+ */
+public final class URLArena extends AbstractList<CharSequence> implements RandomAccess {
+
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Flag of the length of urls which are not ASCII only
+     */
+    private static final int UTF8 = 0x80000000;
+
+    private final boolean direct;
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Chunk index in the high int and offset in the chunk in the low int of each url
+     */
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+    private int size = 0;
+
+    private ByteBuffer chunk = null;
+    private int position = 0;
+    private long byteSize = 0;
+
+    /**
+     * Arena on heap.
+     */
+    public URLArena() {
+        this(false);
+    }
+
+    /**
+     * @param direct if urls are stored off heap, in direct byte buffers
+     */
+    public URLArena(boolean direct) {
+        this(direct, CHUNK_SIZE);
+    }
+
+    /**
+     * @param direct if urls are stored off heap, in direct byte buffers
+     * @param chunkSize size of the buffers allocated, larger for urls longer than it
+     */
+    URLArena(boolean direct, int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Non positive chunk size: " + chunkSize);
+        this.direct = direct;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Append an url, copying its bytes.
+     * @param url
+     * @return true
+     */
+    @Override
+    public boolean add(CharSequence url) {
+        final int length = url.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = url.charAt(i) < 0x80;
+        }
+
+        byte[] encoded = ascii ? null : url.toString().getBytes(StandardCharsets.UTF_8);
+        int byteLength = ascii ? length : encoded.length;
+        ByteBuffer target = reserve(byteLength);
+        if (ascii) {
+            for (int i = 0; i < length; i++) {
+                target.put(position + i, (byte) url.charAt(i));
+            }
+        } else {
+            ByteBuffer bytes = target.duplicate();
+            bytes.position(position);
+            bytes.put(encoded);
+        }
+
+        if (size == lengths.length) {
+            offsets = Arrays.copyOf(offsets, size + (size >> 1));
+            lengths = Arrays.copyOf(lengths, offsets.length);
+        }
+        offsets[size] = (long) (chunks.size() - 1) << 32 | position;
+        lengths[size] = ascii ? byteLength : byteLength | UTF8;
+        size++;
+
+        position += byteLength;
+        byteSize += byteLength;
+        return true;
+    }
+
+    /**
+     * @return a chunk with room for length bytes at the current position
+     */
+    private ByteBuffer reserve(int length) {
+        if (chunk != null && chunk.capacity() - position >= length)
+            return chunk;
+
+        int capacity = Math.max(chunkSize, length);
+        chunk = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        chunks.add(chunk);
+        position = 0;
+        return chunk;
+    }
+
+    /**
+     * Append each line of a file, see {@link URLRegex#buildPattern(Path)} for the format.
+     * @param path file of urls, one per line, possibly gzipped
+     * @return this arena
+     * @throws IOException if the file cannot be read
+     */
+    public URLArena read(Path path) throws IOException {
+        new URLReader(this::add).read(path);
+        return this;
+    }
+
+    /**
+     * Append each line of a stream, possibly gzipped. The stream is read until its end but not closed.
+     * @param in stream of urls, one per line
+     * @return this arena
+     * @throws IOException if the stream cannot be read
+     */
+    public URLArena read(InputStream in) throws IOException {
+        new URLReader(this::add).read(in);
+        return this;
+    }
+
+    /**
+     * @param index
+     * @return a view over the bytes of the url if it is ASCII only, its decoded text otherwise
+     */
+    @Override
+    public CharSequence get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+
+        ByteBuffer buffer = chunks.get((int) (offsets[index] >>> 32));
+        int start = (int) offsets[index];
+        int length = lengths[index] & ~UTF8;
+        if ((lengths[index] & UTF8) == 0)
+            return new AsciiSequence(buffer, start, start + length);
+
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.limit(start + length);
+        bytes.position(start);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of bytes of the urls stored
+     */
+    public long byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * @return if urls are stored off heap
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+}
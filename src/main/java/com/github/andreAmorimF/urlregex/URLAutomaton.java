@@ -0,0 +1,685 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Table driven deterministic automaton equivalent to a pattern built by {@link URLRegex}. Matching reads each char of
+ * the url exactly once and does not allocate, so it runs in linear time whatever the input.
+ *
+ * Only the regex constructs emitted by {@link URLRegex} are supported: literals, escaped chars, {@code \d}, simple
+ * character classes, capturing and non capturing groups with alternatives and the {@code ? * +} quantifiers.
+ */
+public final class URLAutomaton implements URLMatcher {
+
+    /**
+     * Upper bound on the number of states of the automaton
+     */
+    static final int MAX_STATES = 1 << 16;
+
+    private static final int ASCII = 128;
+
+    /**
+     * Bound of the transition table read from a model, the largest array size supported by common JVMs
+     */
+    private static final long MAX_TRANSITIONS = Integer.MAX_VALUE - 8;
+    private static final int READ_CHUNK = 1 << 12;
+
+    /**
+     * Regex this automaton was compiled from
+     */
+    final String regex;
+
+    /**
+     * Char class of each ascii char
+     */
+    final int[] asciiClasses;
+
+    /**
+     * Non ascii chars having their own class, sorted, with their classes
+     */
+    final char[] extraChars;
+    final int[] extraClasses;
+
+    /**
+     * Class of every other char
+     */
+    final int otherClass;
+
+    final int classCount;
+
+    /**
+     * Next state by state and char class, -1 when the url cannot match anymore
+     */
+    final int[] transitions;
+
+    final boolean[] accepting;
+
+    URLAutomaton(String regex, int[] asciiClasses, char[] extraChars, int[] extraClasses, int otherClass,
+                 int classCount, int[] transitions, boolean[] accepting) {
+        this.regex = regex;
+        this.asciiClasses = asciiClasses;
+        this.extraChars = extraChars;
+        this.extraClasses = extraClasses;
+        this.otherClass = otherClass;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.accepting = accepting;
+    }
+
+    /**
+     * @param pattern pattern built by {@link URLRegex}
+     * @return automaton accepting the same urls as the pattern
+     * @throws IllegalArgumentException if the pattern uses an unsupported construct
+     */
+    public static URLAutomaton compile(Pattern pattern) {
+        return compile(pattern.pattern());
+    }
+
+    /**
+     * @param regex regex built by {@link URLRegex}
+     * @return automaton accepting the same urls as the regex
+     * @throws IllegalArgumentException if the regex uses an unsupported construct
+     */
+    public static URLAutomaton compile(String regex) {
+        Nfa nfa = new Nfa();
+        Fragment fragment = new Parser(regex, nfa).parse();
+        return determinize(regex, nfa, fragment);
+    }
+
+    @Override
+    public boolean matches(CharSequence url) {
+        int state = 0;
+        for (int i = 0, length = url.length(); i < length; i++) {
+            state = transitions[state * classCount + classOf(url.charAt(i))];
+            if (state < 0)
+                return false;
+        }
+        return accepting[state];
+    }
+
+    /**
+     * @return number of states of the automaton
+     */
+    public int size() {
+        return accepting.length;
+    }
+
+    /**
+     * Write the tables of the automaton, see {@link URLModel#writeTo(java.io.OutputStream, boolean)}.
+     * @param out
+     * @throws IOException
+     */
+    void write(DataOutput out) throws IOException {
+        URLModel.writeString(out, regex);
+        out.writeInt(classCount);
+        out.writeInt(otherClass);
+        for (int c : asciiClasses) {
+            out.writeInt(c);
+        }
+        out.writeInt(extraChars.length);
+        for (int i = 0; i < extraChars.length; i++) {
+            out.writeChar(extraChars[i]);
+            out.writeInt(extraClasses[i]);
+        }
+        out.writeInt(accepting.length);
+        for (boolean state : accepting) {
+            out.writeBoolean(state);
+        }
+        for (int transition : transitions) {
+            out.writeInt(transition);
+        }
+    }
+
+    /**
+     * Read the tables written by {@link #write(DataOutput)}.
+     * @param in
+     * @return the automaton
+     * @throws IOException if the tables cannot be read or are inconsistent
+     */
+    static URLAutomaton read(DataInput in) throws IOException {
+        String regex = URLModel.readString(in);
+        int classCount = in.readInt();
+        int otherClass = in.readInt();
+        // At most one class per ascii char, per non ascii char of the regex, and for the other chars
+        if (classCount <= 0 || classCount > ASCII + Character.MAX_VALUE + 1 || otherClass < 0 ||
+            otherClass >= classCount)
+            throw new IOException("Corrupted automaton: " + classCount + " classes");
+
+        int[] asciiClasses = new int[ASCII];
+        for (int c = 0; c < ASCII; c++) {
+            asciiClasses[c] = checkClass(in.readInt(), classCount);
+        }
+        int extraCount = in.readInt();
+        if (extraCount < 0 || extraCount > Character.MAX_VALUE)
+            throw new IOException("Corrupted automaton: " + extraCount + " non ascii chars");
+        if (classCount > ASCII + extraCount + 1)
+            throw new IOException("Corrupted automaton: " + classCount + " classes");
+        char[] extraChars = new char[extraCount];
+        int[] extraClasses = new int[extraCount];
+        for (int i = 0; i < extraCount; i++) {
+            extraChars[i] = in.readChar();
+            extraClasses[i] = checkClass(in.readInt(), classCount);
+        }
+
+        int states = in.readInt();
+        if (states <= 0 || states > MAX_STATES)
+            throw new IOException("Corrupted automaton: " + states + " states");
+        boolean[] accepting = new boolean[states];
+        for (int i = 0; i < states; i++) {
+            accepting[i] = in.readBoolean();
+        }
+        long size = (long) states * classCount;
+        if (size > MAX_TRANSITIONS)
+            throw new IOException("Corrupted automaton: " + states + " states of " + classCount + " classes");
+
+        // Grown while read, so that a table past the end of the stream fails on it rather than being allocated
+        int[] transitions = new int[(int) Math.min(size, READ_CHUNK)];
+        for (int i = 0; i < size; i++) {
+            if (i == transitions.length)
+                transitions = Arrays.copyOf(transitions, (int) Math.min(size, 2L * i));
+            transitions[i] = in.readInt();
+            if (transitions[i] < -1 || transitions[i] >= states)
+                throw new IOException("Corrupted automaton: transition to state " + transitions[i]);
+        }
+
+        return new URLAutomaton(regex, asciiClasses, extraChars, extraClasses, otherClass, classCount, transitions,
+            accepting);
+    }
+
+    private static int checkClass(int c, int classCount) throws IOException {
+        if (c < 0 || c >= classCount)
+            throw new IOException("Corrupted automaton: char class " + c);
+        return c;
+    }
+
+    private int classOf(char c) {
+        if (c < ASCII)
+            return asciiClasses[c];
+
+        int pos = Arrays.binarySearch(extraChars, c);
+        return pos >= 0 ? extraClasses[pos] : otherClass;
+    }
+
+    @Override
+    public String toString() {
+        return regex;
+    }
+
+    /**
+     * Subset construction of the automaton, over the classes of chars the regex cannot tell apart.
+     */
+    private static URLAutomaton determinize(String regex, Nfa nfa, Fragment fragment) {
+
+        // Split chars into classes of chars accepted by the same char sets
+        List<CharSet> sets = nfa.charSets();
+        SortedSet<Character> extra = new TreeSet<>();
+        for (CharSet set : sets) {
+            for (char c : set.chars.toCharArray()) {
+                if (c >= ASCII)
+                    extra.add(c);
+            }
+        }
+        char other = ASCII;
+        while (extra.contains(other))
+            other++;
+
+        Map<BitSet, Integer> classesBySignature = new HashMap<>();
+        List<Character> representatives = new ArrayList<>();
+        int[] asciiClasses = new int[ASCII];
+        for (char c = 0; c < ASCII; c++) {
+            asciiClasses[c] = classOf(c, sets, classesBySignature, representatives);
+        }
+        char[] extraChars = new char[extra.size()];
+        int[] extraClasses = new int[extra.size()];
+        int index = 0;
+        for (char c : extra) {
+            extraChars[index] = c;
+            extraClasses[index++] = classOf(c, sets, classesBySignature, representatives);
+        }
+        int otherClass = classOf(other, sets, classesBySignature, representatives);
+        int classCount = representatives.size();
+
+        boolean[][] contains = new boolean[sets.size()][classCount];
+        for (int i = 0; i < sets.size(); i++) {
+            for (int cls = 0; cls < classCount; cls++) {
+                contains[i][cls] = sets.get(i).contains(representatives.get(cls));
+            }
+        }
+
+        // Merge states having the same future, so that equivalent branches of the regex (e.g. the values of all
+        // query parameters) do not multiply the number of subsets
+        Reduced reduced = reduce(nfa, fragment, sets);
+
+        // Build states reachable from the start state
+        Map<BitSet, Integer> statesBySubset = new HashMap<>();
+        List<BitSet> subsets = new ArrayList<>();
+        BitSet start = new BitSet();
+        start.set(reduced.start);
+        statesBySubset.put(start, 0);
+        subsets.add(start);
+
+        int[] transitions = new int[16 * classCount];
+        for (int state = 0; state < subsets.size(); state++) {
+            BitSet subset = subsets.get(state);
+            if ((state + 1) * classCount > transitions.length)
+                transitions = Arrays.copyOf(transitions, transitions.length * 2);
+
+            for (int cls = 0; cls < classCount; cls++) {
+                BitSet next = new BitSet();
+                for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+                    for (int k = 0; k < reduced.sets[s].length; k++) {
+                        if (contains[reduced.sets[s][k]][cls])
+                            next.set(reduced.targets[s][k]);
+                    }
+                }
+
+                if (next.isEmpty()) {
+                    transitions[state * classCount + cls] = -1;
+                    continue;
+                }
+
+                Integer target = statesBySubset.get(next);
+                if (target == null) {
+                    if (subsets.size() == MAX_STATES)
+                        throw new IllegalArgumentException("Too many states to compile " + regex);
+                    target = subsets.size();
+                    statesBySubset.put(next, target);
+                    subsets.add(next);
+                }
+                transitions[state * classCount + cls] = target;
+            }
+        }
+
+        boolean[] accepting = new boolean[subsets.size()];
+        for (int state = 0; state < subsets.size(); state++) {
+            accepting[state] = subsets.get(state).intersects(reduced.accepting);
+        }
+
+        return new URLAutomaton(regex, asciiClasses, extraChars, extraClasses, otherClass, classCount,
+            Arrays.copyOf(transitions, subsets.size() * classCount), accepting);
+    }
+
+    /**
+     * Remove empty transitions and merge states accepting the same suffixes, by partition refinement.
+     */
+    private static Reduced reduce(Nfa nfa, Fragment fragment, List<CharSet> sets) {
+
+        Map<CharSet, Integer> setIds = new HashMap<>();
+        for (int i = 0; i < sets.size(); i++) {
+            setIds.put(sets.get(i), i);
+        }
+
+        // Only the start state and the targets of char transitions are ever entered
+        int[] indexes = new int[nfa.size()];
+        Arrays.fill(indexes, -1);
+        List<Integer> entered = new ArrayList<>();
+        indexes[fragment.start] = 0;
+        entered.add(fragment.start);
+        for (int s = 0; s < nfa.size(); s++) {
+            int target = nfa.targets.get(s);
+            if (nfa.sets.get(s) != null && indexes[target] < 0) {
+                indexes[target] = entered.size();
+                entered.add(target);
+            }
+        }
+
+        int size = entered.size();
+        int[][] moveSets = new int[size][];
+        int[][] moveTargets = new int[size][];
+        BitSet accepting = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            BitSet closure = new BitSet();
+            closure.set(entered.get(i));
+            nfa.closure(closure);
+            accepting.set(i, closure.get(fragment.end));
+
+            List<Integer> moves = new ArrayList<>();
+            for (int s = closure.nextSetBit(0); s >= 0; s = closure.nextSetBit(s + 1)) {
+                if (nfa.sets.get(s) != null)
+                    moves.add(s);
+            }
+            moveSets[i] = new int[moves.size()];
+            moveTargets[i] = new int[moves.size()];
+            for (int k = 0; k < moves.size(); k++) {
+                moveSets[i][k] = setIds.get(nfa.sets.get(moves.get(k)));
+                moveTargets[i][k] = indexes[nfa.targets.get(moves.get(k))];
+            }
+        }
+
+        // Split blocks of states until states of a block move to the same blocks on the same char sets
+        int[] blocks = new int[size];
+        for (int i = 0; i < size; i++) {
+            blocks[i] = accepting.get(i) ? 1 : 0;
+        }
+        int count = 0;
+        while (true) {
+            Map<Set<Long>, Integer> signatures = new HashMap<>();
+            int[] next = new int[size];
+            for (int i = 0; i < size; i++) {
+                Set<Long> signature = new HashSet<>();
+                signature.add(-1L - blocks[i]);
+                for (int k = 0; k < moveSets[i].length; k++) {
+                    signature.add(((long) moveSets[i][k] << 32) | blocks[moveTargets[i][k]]);
+                }
+                Integer block = signatures.get(signature);
+                if (block == null) {
+                    block = signatures.size();
+                    signatures.put(signature, block);
+                }
+                next[i] = block;
+            }
+            blocks = next;
+            if (signatures.size() == count)
+                break;
+            count = signatures.size();
+        }
+
+        Reduced reduced = new Reduced(count, blocks[0]);
+        for (int i = 0; i < size; i++) {
+            int block = blocks[i];
+            if (reduced.sets[block] != null)
+                continue;
+
+            Set<Long> moves = new LinkedHashSet<>();
+            for (int k = 0; k < moveSets[i].length; k++) {
+                moves.add(((long) moveSets[i][k] << 32) | blocks[moveTargets[i][k]]);
+            }
+            reduced.sets[block] = new int[moves.size()];
+            reduced.targets[block] = new int[moves.size()];
+            int k = 0;
+            for (long move : moves) {
+                reduced.sets[block][k] = (int) (move >>> 32);
+                reduced.targets[block][k++] = (int) move;
+            }
+            reduced.accepting.set(block, accepting.get(i));
+        }
+        return reduced;
+    }
+
+    /**
+     * Automaton without empty transitions, each state moving on char sets to other states
+     */
+    private static final class Reduced {
+
+        private final int start;
+        private final int[][] sets;
+        private final int[][] targets;
+        private final BitSet accepting = new BitSet();
+
+        Reduced(int size, int start) {
+            this.start = start;
+            this.sets = new int[size][];
+            this.targets = new int[size][];
+        }
+    }
+
+    private static int classOf(char c, List<CharSet> sets, Map<BitSet, Integer> classesBySignature,
+                               List<Character> representatives) {
+        BitSet signature = new BitSet(sets.size());
+        for (int i = 0; i < sets.size(); i++) {
+            if (sets.get(i).contains(c))
+                signature.set(i);
+        }
+
+        Integer cls = classesBySignature.get(signature);
+        if (cls == null) {
+            cls = representatives.size();
+            classesBySignature.put(signature, cls);
+            representatives.add(c);
+        }
+        return cls;
+    }
+
+    /**
+     * Set of chars, given by its members or by the chars it excludes
+     */
+    private static final class CharSet {
+
+        private final String chars;
+        private final boolean negated;
+
+        CharSet(String chars, boolean negated) {
+            this.chars = chars;
+            this.negated = negated;
+        }
+
+        boolean contains(char c) {
+            return (chars.indexOf(c) >= 0) != negated;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            CharSet charSet = (CharSet) o;
+            return negated == charSet.negated && chars.equals(charSet.chars);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * chars.hashCode() + (negated ? 1 : 0);
+        }
+    }
+
+    /**
+     * Thompson automaton: each state has either one transition on a char set or any number of empty transitions
+     */
+    private static final class Nfa {
+
+        private final List<CharSet> sets = new ArrayList<>();
+        private final List<Integer> targets = new ArrayList<>();
+        private final List<List<Integer>> epsilons = new ArrayList<>();
+
+        int state() {
+            sets.add(null);
+            targets.add(-1);
+            epsilons.add(new ArrayList<Integer>(2));
+            return sets.size() - 1;
+        }
+
+        int size() {
+            return sets.size();
+        }
+
+        void epsilon(int from, int to) {
+            epsilons.get(from).add(to);
+        }
+
+        void transition(int from, CharSet set, int to) {
+            sets.set(from, set);
+            targets.set(from, to);
+        }
+
+        List<CharSet> charSets() {
+            Set<CharSet> distinct = new LinkedHashSet<>();
+            for (CharSet set : sets) {
+                if (set != null)
+                    distinct.add(set);
+            }
+            return new ArrayList<>(distinct);
+        }
+
+        void closure(BitSet states) {
+            Deque<Integer> pending = new ArrayDeque<>();
+            for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+                pending.push(s);
+            }
+            while (!pending.isEmpty()) {
+                for (int next : epsilons.get(pending.pop())) {
+                    if (!states.get(next)) {
+                        states.set(next);
+                        pending.push(next);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Fragment {
+
+        private final int start;
+        private final int end;
+
+        Fragment(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Recursive descent parser turning the regex into fragments of the Thompson automaton
+     */
+    private static final class Parser {
+
+        private static final CharSet DIGITS = new CharSet("0123456789", false);
+
+        private final String regex;
+        private final Nfa nfa;
+        private int pos = 0;
+
+        Parser(String regex, Nfa nfa) {
+            this.regex = regex;
+            this.nfa = nfa;
+        }
+
+        Fragment parse() {
+            int end = regex.length();
+            if (regex.startsWith("^"))
+                pos++;
+            if (regex.endsWith("$") && !regex.endsWith("\\$"))
+                end--;
+
+            Fragment fragment = alternatives(end);
+            if (pos != end)
+                throw unsupported();
+            return fragment;
+        }
+
+        private Fragment alternatives(int end) {
+            List<Fragment> alternatives = new ArrayList<>();
+            alternatives.add(sequence(end));
+            while (pos < end && regex.charAt(pos) == '|') {
+                pos++;
+                alternatives.add(sequence(end));
+            }
+
+            if (alternatives.size() == 1)
+                return alternatives.get(0);
+
+            int start = nfa.state();
+            int accept = nfa.state();
+            for (Fragment alternative : alternatives) {
+                nfa.epsilon(start, alternative.start);
+                nfa.epsilon(alternative.end, accept);
+            }
+            return new Fragment(start, accept);
+        }
+
+        private Fragment sequence(int end) {
+            int start = nfa.state();
+            int last = start;
+            while (pos < end && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+                Fragment fragment = quantified(end);
+                nfa.epsilon(last, fragment.start);
+                last = fragment.end;
+            }
+            return new Fragment(start, last);
+        }
+
+        private Fragment quantified(int end) {
+            Fragment atom = atom(end);
+            if (pos >= end)
+                return atom;
+
+            char quantifier = regex.charAt(pos);
+            if (quantifier != '?' && quantifier != '*' && quantifier != '+')
+                return atom;
+            pos++;
+
+            int start = nfa.state();
+            int accept = nfa.state();
+            nfa.epsilon(start, atom.start);
+            nfa.epsilon(atom.end, accept);
+            if (quantifier != '+')
+                nfa.epsilon(start, accept);
+            if (quantifier != '?')
+                nfa.epsilon(atom.end, atom.start);
+            return new Fragment(start, accept);
+        }
+
+        private Fragment atom(int end) {
+            char c = regex.charAt(pos++);
+            switch (c) {
+                case '(':
+                    if (regex.startsWith("?:", pos))
+                        pos += 2;
+                    Fragment group = alternatives(end);
+                    if (pos >= end || regex.charAt(pos) != ')')
+                        throw unsupported();
+                    pos++;
+                    return group;
+                case '[':
+                    return single(charClass(end));
+                case '\\':
+                    if (pos >= end)
+                        throw unsupported();
+                    char escaped = regex.charAt(pos++);
+                    if (escaped == 'd')
+                        return single(DIGITS);
+                    if (Character.isLetterOrDigit(escaped))
+                        throw unsupported();
+                    return single(new CharSet(String.valueOf(escaped), false));
+                case '.':
+                case '^':
+                case '$':
+                case ')':
+                case '?':
+                case '*':
+                case '+':
+                case '{':
+                    throw unsupported();
+                default:
+                    return single(new CharSet(String.valueOf(c), false));
+            }
+        }
+
+        private CharSet charClass(int end) {
+            boolean negated = pos < end && regex.charAt(pos) == '^';
+            if (negated)
+                pos++;
+
+            StringBuilder chars = new StringBuilder();
+            while (pos < end && regex.charAt(pos) != ']') {
+                char c = regex.charAt(pos++);
+                if (c == '\\') {
+                    if (pos >= end || Character.isLetterOrDigit(regex.charAt(pos)))
+                        throw unsupported();
+                    c = regex.charAt(pos++);
+                } else if (c == '[' || c == '-' || c == '&' && pos < end && regex.charAt(pos) == '&') {
+                    throw unsupported();
+                }
+                chars.append(c);
+            }
+            if (pos >= end)
+                throw unsupported();
+            pos++;
+            return new CharSet(chars.toString(), negated);
+        }
+
+        private Fragment single(CharSet set) {
+            int start = nfa.state();
+            int accept = nfa.state();
+            nfa.transition(start, set, accept);
+            return new Fragment(start, accept);
+        }
+
+        private IllegalArgumentException unsupported() {
+            return new IllegalArgumentException("Unsupported construct at " + pos + " in " + regex);
+        }
+    }
+}
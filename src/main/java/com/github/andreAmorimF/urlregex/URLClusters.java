@@ -0,0 +1,319 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Groups urls of the same shape, so that urls of a mixed site get one pattern per kind of page rather than one pattern
+ * generalized over all of them. Each url is described by shingles of its segments: the position of the segment with
+ * its content, digits runs collapsed, and with its shape, runs of letters and of digits collapsed, plus the number of
+ * segments and the query parameter names. The protocol is left out.
+ *
+ * Comparing all pairs of urls is out of reach for large corpora, so urls are compared through a MinHash signature of
+ * their shingles, the 8 low bits of each of its hashes, and only urls falling in the same bucket of one band of their
+ * signature (LSH) are compared. Urls whose signatures agree on at least half of their hashes, estimating the Jaccard
+ * similarity of their shingles, are joined in a union-find forest, each tree being a cluster.
+ */
+final class URLClusters {
+
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+
+    /**
+     * Hashes two signatures must share, out of HASHES, for their urls to be in the same cluster
+     */
+    private static final int MIN_SHARED = HASHES / 2;
+
+    /**
+     * Hash functions of the signature, multiply-shift hashes of the mixed shingle
+     */
+    private static final long[] MULTIPLIERS = new long[HASHES];
+    private static final long[] INCREMENTS = new long[HASHES];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            MULTIPLIERS[i] = seed | 1;
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            INCREMENTS[i] = seed;
+        }
+    }
+
+    private URLClusters() {
+    }
+
+    /**
+     * @param urls
+     * @param pool pool computing the signatures of the urls
+     * @return the urls of each cluster, in order of their first url, and in their order inside each cluster
+     */
+    static List<List<String>> cluster(List<String> urls, ForkJoinPool pool) {
+        final int size = urls.size();
+        byte[] signatures = new byte[size * HASHES];
+        pool.invoke(new SignatureTask(urls, signatures, 0, size));
+
+        int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            parents[i] = i;
+        }
+
+        // Urls of the same signature, such as urls only differing by numbers, are joined without going through bands
+        int[] firsts = new int[tableSize(size)];
+        Arrays.fill(firsts, -1);
+        int[] distinct = new int[size];
+        int distinctCount = 0;
+        for (int i = 0; i < size; i++) {
+            int first = sameSignature(signatures, firsts, i);
+            if (first == i)
+                distinct[distinctCount++] = i;
+            else
+                parents[i] = first;
+        }
+
+        // Each url is compared to the first url of its bucket only, one bucket per band
+        long[] keys = new long[tableSize(distinctCount)];
+        firsts = new int[keys.length];
+        for (int band = 0; band < BANDS; band++) {
+            Arrays.fill(firsts, -1);
+            for (int j = 0; j < distinctCount; j++) {
+                int i = distinct[j];
+                int first = bucket(keys, firsts, bandKey(signatures, i, band), i);
+                if (first != i && similar(signatures, first, i))
+                    union(parents, first, i);
+            }
+        }
+
+        // Roots are the first url of their cluster
+        List<List<String>> clusters = new ArrayList<>();
+        int[] clusterOf = new int[size];
+        for (int i = 0; i < size; i++) {
+            int root = find(parents, i);
+            if (root == i) {
+                clusterOf[i] = clusters.size();
+                clusters.add(new ArrayList<String>());
+            }
+            clusters.get(clusterOf[root]).add(urls.get(i));
+        }
+        return clusters;
+    }
+
+    /**
+     * @return power of two table size, keeping open addressing tables of entries at most half full
+     */
+    private static int tableSize(int entries) {
+        return Integer.highestOneBit(Math.max(entries, 1) * 2 - 1) << 1;
+    }
+
+    /**
+     * Look the first url of the same signature up, in an open addressing table.
+     * @return the first url of the signature, url itself if it is the first one
+     */
+    private static int sameSignature(byte[] signatures, int[] firsts, int url) {
+        int offset = url * HASHES;
+        long hash = 0;
+        for (int i = 0; i < HASHES; i++) {
+            hash = hash * 31 + signatures[offset + i];
+        }
+
+        int mask = firsts.length - 1;
+        int slot = (int) mix(hash) & mask;
+        while (firsts[slot] >= 0) {
+            if (similarity(signatures, firsts[slot], url) == HASHES)
+                return firsts[slot];
+            slot = (slot + 1) & mask;
+        }
+        firsts[slot] = url;
+        return url;
+    }
+
+    /**
+     * Look the first url of a bucket up, in an open addressing table.
+     * @return the first url of the bucket, url itself if the bucket was empty
+     */
+    private static int bucket(long[] keys, int[] firsts, long key, int url) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (firsts[slot] >= 0) {
+            if (keys[slot] == key)
+                return firsts[slot];
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        firsts[slot] = url;
+        return url;
+    }
+
+    private static long bandKey(byte[] signatures, int url, int band) {
+        int offset = url * HASHES + band * ROWS;
+        long key = band;
+        for (int i = 0; i < ROWS; i++) {
+            key = key << 8 ^ signatures[offset + i] & 0xFF;
+        }
+        return key;
+    }
+
+    private static boolean similar(byte[] signatures, int url1, int url2) {
+        return similarity(signatures, url1, url2) >= MIN_SHARED;
+    }
+
+    /**
+     * @return number of hashes both signatures share
+     */
+    private static int similarity(byte[] signatures, int url1, int url2) {
+        int offset1 = url1 * HASHES;
+        int offset2 = url2 * HASHES;
+        int shared = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (signatures[offset1 + i] == signatures[offset2 + i])
+                shared++;
+        }
+        return shared;
+    }
+
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    /**
+     * Join the trees of both urls, under the root of lowest index
+     */
+    private static void union(int[] parents, int i, int j) {
+        int root1 = find(parents, i);
+        int root2 = find(parents, j);
+        if (root1 < root2)
+            parents[root2] = root1;
+        else if (root2 < root1)
+            parents[root1] = root2;
+    }
+
+    /**
+     * Finalizer of MurmurHash3
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Computes the signatures of a range of urls, splitting it while it is larger than
+     * {@link URLRegex#PARALLEL_THRESHOLD}
+     */
+    private static class SignatureTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> urls;
+        private final byte[] signatures;
+        private final int from;
+        private final int to;
+
+        SignatureTask(List<String> urls, byte[] signatures, int from, int to) {
+            this.urls = urls;
+            this.signatures = signatures;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= URLRegex.PARALLEL_THRESHOLD) {
+                Signer signer = new Signer();
+                for (int i = from; i < to; i++) {
+                    signer.sign(urls.get(i), signatures, i * HASHES);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SignatureTask(urls, signatures, from, middle), new SignatureTask(urls, signatures, middle, to));
+        }
+    }
+
+    /**
+     * MinHash of the shingles of an url, keeping the lowest hash of its shingles for each seed. Instances reuse their
+     * tokenizer and are not thread safe.
+     */
+    private static final class Signer implements URLTokenizer.Handler {
+
+        private static final long SEGMENTS = 1;
+        private static final long CONTENT = 2;
+        private static final long SHAPE = 3;
+        private static final long QUERY = 4;
+
+        private final URLTokenizer tokenizer = new URLTokenizer();
+        private final long[] minimums = new long[HASHES];
+        private int segments;
+
+        void sign(CharSequence url, byte[] signatures, int offset) {
+            Arrays.fill(minimums, Long.MAX_VALUE);
+            segments = 0;
+            tokenizer.tokenize(url, true, this);
+            shingle(SEGMENTS * 31 + segments);
+
+            for (int i = 0; i < HASHES; i++) {
+                signatures[offset + i] = (byte) minimums[i];
+            }
+        }
+
+        @Override
+        public void protocol(boolean ssl) {
+        }
+
+        @Override
+        public void segment(String token, String separator) {
+            long content = CONTENT * 31 + segments;
+            long shape = SHAPE * 31 + segments;
+            char previousContent = 0;
+            char previousShape = 0;
+            for (int i = 0; i < token.length(); i++) {
+                char c = token.charAt(i);
+                char shapeChar = c;
+                if (c >= '0' && c <= '9')
+                    shapeChar = c = '0';
+                else if (Character.isLetter(c) || c == '-')
+                    shapeChar = 'a';
+
+                if (c != '0' || previousContent != '0')
+                    content = content * 31 + c;
+                if (shapeChar != previousShape)
+                    shape = shape * 31 + shapeChar;
+                previousContent = c;
+                previousShape = shapeChar;
+            }
+            shingle(content);
+            shingle(shape);
+            segments++;
+        }
+
+        @Override
+        public void query() {
+        }
+
+        @Override
+        public void queryParameter(String key, QueryModel.ValueType value) {
+            shingle(QUERY * 31 + key.hashCode());
+        }
+
+        private void shingle(long shingle) {
+            long hash = mix(shingle);
+            for (int i = 0; i < HASHES; i++) {
+                long value = (hash * MULTIPLIERS[i] + INCREMENTS[i]) >>> 32;
+                if (value < minimums[i])
+                    minimums[i] = value;
+            }
+        }
+    }
+}
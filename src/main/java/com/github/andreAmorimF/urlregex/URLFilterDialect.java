@@ -0,0 +1,17 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Accepting line of a regex url filter, see {@link PatternDialect#URL_FILTER}. Filters look for the regex anywhere in
+ * the url, so it is anchored even without protocol.
+ */
+final class URLFilterDialect extends JavaDialect {
+
+    @Override
+    public void protocol(boolean allowsHttp, boolean allowsSSL, StringBuilder out) {
+        out.append('+');
+        if (allowsHttp || allowsSSL)
+            super.protocol(allowsHttp, allowsSSL, out);
+        else
+            out.append('^');
+    }
+}
@@ -0,0 +1,13 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Tests urls against a learned url pattern.
+ */
+public interface URLMatcher {
+
+    /**
+     * @param url
+     * @return if the whole url is accepted by the learned pattern
+     */
+    boolean matches(CharSequence url);
+}
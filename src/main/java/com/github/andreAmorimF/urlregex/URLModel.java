@@ -0,0 +1,309 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Generalized model learned from a set of urls: the generalized segments, the protocols seen, the {@link QueryModel}
+ * of the query parameters and whether urls without query were seen. The regex of {@link URLRegex} is emitted from this model.
+ *
+ * Models can be written to a compact binary format and read back, optionally along with their compiled automaton, so
+ * that a process can reuse a model learned before without folding the urls again, or resume folding with
+ * {@link URLRegexBuilder#URLRegexBuilder(URLModel)}. Instances are immutable.
+ */
+public final class URLModel {
+
+    /**
+     * First bytes of the binary format, "URLM"
+     */
+    static final int MAGIC = 0x55524C4D;
+
+    /**
+     * Version of the binary format, incremented on incompatible changes. Version 1 only had the query parameter names
+     * with if they had a value.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Bounds of the lengths read from a model, so that a corrupted length fails as such rather than allocating it
+     */
+    static final int MAX_STRING_LENGTH = 1 << 24;
+    static final int MAX_SEGMENTS = 1 << 16;
+
+    /**
+     * Strings are read by chunks of at most this size, so that a length past the end of the stream fails on it
+     */
+    private static final int CHUNK = 1 << 12;
+
+    private static final int HTTP = 1;
+    private static final int SSL = 2;
+    private static final int AUTOMATON = 4;
+
+    private final List<URLSegment> segments;
+    private final QueryModel queries;
+    private final Map<String, Boolean> queriesMap;
+    private final boolean allowsHttp;
+    private final boolean allowsSSL;
+    private final int urlsCount;
+
+    /**
+     * Compiled on first use, or read along with the model
+     */
+    private volatile URLAutomaton automaton;
+
+    /**
+     * @param segments generalized segments, copied
+     * @param queries query parameters, copied
+     * @param allowsHttp if urls with the http protocol were seen
+     * @param allowsSSL if urls with the https protocol were seen
+     * @param urlsCount number of urls the model was learned from
+     */
+    URLModel(List<URLSegment> segments, QueryModel queries, boolean allowsHttp, boolean allowsSSL, int urlsCount) {
+        List<URLSegment> copy = new ArrayList<>(segments.size());
+        for (URLSegment segment : segments) {
+            copy.add(new URLSegment(segment.getContent(), segment.getSeparator(), segment.isOptional()));
+        }
+        this.segments = Collections.unmodifiableList(copy);
+        this.queries = new QueryModel(queries);
+        this.queriesMap = Collections.unmodifiableMap(this.queries.toMap());
+        this.allowsHttp = allowsHttp;
+        this.allowsSSL = allowsSSL;
+        this.urlsCount = urlsCount;
+    }
+
+    /**
+     * @return copy of the generalized segments, the host first with its labels reversed
+     */
+    public List<URLSegment> getSegments() {
+        List<URLSegment> copy = new ArrayList<>(segments.size());
+        for (URLSegment segment : segments) {
+            copy.add(new URLSegment(segment.getContent(), segment.getSeparator(), segment.isOptional()));
+        }
+        return copy;
+    }
+
+    /**
+     * @return query parameter names, in discovery order, with if they had a non empty value
+     */
+    public Map<String, Boolean> getQueries() {
+        return queriesMap;
+    }
+
+    /**
+     * @return query parameters with their counts and value types
+     */
+    public QueryModel getQueryModel() {
+        return queries;
+    }
+
+    public boolean allowsHttp() {
+        return allowsHttp;
+    }
+
+    public boolean allowsSSL() {
+        return allowsSSL;
+    }
+
+    /**
+     * @return if some urls had no query
+     */
+    public boolean isQueryOptional() {
+        return urlsCount != queries.queriesCount();
+    }
+
+    /**
+     * @return number of urls the model was learned from
+     */
+    public int size() {
+        return urlsCount;
+    }
+
+    /**
+     * @return the regex of the model, as built by {@link URLRegex#buildPattern(List)}
+     */
+    public Pattern toPattern() {
+        return toPattern(false);
+    }
+
+    /**
+     * @param possessive if the regex should use possessive quantifiers and atomic groups, see
+     * {@link URLRegexBuilder#withPossessiveQuantifiers()}
+     * @return the regex of the model
+     */
+    public Pattern toPattern(boolean possessive) {
+        return URLRegex.buildPattern(segments, queries, isQueryOptional(), allowsHttp, allowsSSL, possessive);
+    }
+
+    /**
+     * @param dialect pattern language, such as {@link PatternDialect#URL_FILTER}
+     * @return the pattern of the model in the dialect
+     */
+    public String emit(PatternDialect dialect) {
+        return PatternEmitter.emit(PatternMinimizer.minimize(segments), queries, isQueryOptional(), allowsHttp,
+            allowsSSL, false, dialect);
+    }
+
+    /**
+     * @return matcher of the same urls as {@link #toPattern()}, checking the literals of the regex first
+     */
+    public PrefilteredMatcher toMatcher() {
+        return PrefilteredMatcher.of(this);
+    }
+
+    /**
+     * @return matcher of the same urls as {@link #toPattern()}, looking query parameter names up in a hash set
+     */
+    public QueryKeyMatcher toQueryKeyMatcher() {
+        return new QueryKeyMatcher(this);
+    }
+
+    /**
+     * @return matcher of the same urls as {@link #toPattern()}, composed of method handles specialized for the model
+     */
+    public SpecializedMatcher toSpecializedMatcher() {
+        return SpecializedMatcher.of(this);
+    }
+
+    /**
+     * @return automaton matching the same urls as {@link #toPattern()}, compiled once
+     */
+    public URLAutomaton toAutomaton() {
+        URLAutomaton result = automaton;
+        if (result == null) {
+            result = URLAutomaton.compile(toPattern());
+            automaton = result;
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #writeTo(OutputStream, boolean)}, without the automaton.
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        writeTo(out, false);
+    }
+
+    /**
+     * Write the model in binary format. The stream is flushed but not closed.
+     * @param out
+     * @param withAutomaton if the compiled automaton should be written too, compiling it if needed
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out, boolean withAutomaton) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeByte((allowsHttp ? HTTP : 0) | (allowsSSL ? SSL : 0) | (withAutomaton ? AUTOMATON : 0));
+        data.writeInt(urlsCount);
+        data.writeInt(queries.queriesCount());
+
+        data.writeInt(segments.size());
+        for (URLSegment segment : segments) {
+            writeString(data, segment.getContent());
+            writeString(data, segment.getSeparator());
+            data.writeBoolean(segment.isOptional());
+        }
+
+        queries.write(data);
+
+        if (withAutomaton)
+            toAutomaton().write(data);
+        data.flush();
+    }
+
+    /**
+     * Read a model written by {@link #writeTo(OutputStream, boolean)}, with its automaton if it was written. Exactly
+     * the bytes of the model are read from the stream, which is not closed.
+     * @param in
+     * @return the model
+     * @throws IOException if the stream cannot be read or does not hold a model of a supported version
+     */
+    public static URLModel readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            if (data.readInt() != MAGIC)
+                throw new IOException("Not a url model");
+            int version = data.readUnsignedByte();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported url model version " + version + ", expected at most " + VERSION);
+
+            int flags = data.readUnsignedByte();
+            int urlsCount = data.readInt();
+            int queriesCount = data.readInt();
+
+            int segmentsCount = data.readInt();
+            if (segmentsCount < 0 || segmentsCount > MAX_SEGMENTS)
+                throw new IOException("Corrupted url model: " + segmentsCount + " segments");
+            List<URLSegment> segments = new ArrayList<>();
+            for (int i = 0; i < segmentsCount; i++) {
+                segments.add(new URLSegment(readString(data), readString(data), data.readBoolean()));
+            }
+
+            QueryModel queries = QueryModel.read(data, version, queriesCount);
+
+            URLModel model = new URLModel(segments, queries, (flags & HTTP) != 0, (flags & SSL) != 0, urlsCount);
+            if ((flags & AUTOMATON) != 0)
+                model.automaton = URLAutomaton.read(data);
+            return model;
+        } catch (EOFException e) {
+            throw new IOException("Truncated url model", e);
+        }
+    }
+
+    static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH)
+            throw new IOException("Corrupted url model: string length " + length);
+
+        byte[] bytes = new byte[Math.min(length, CHUNK)];
+        int read = 0;
+        while (read < length) {
+            if (read == bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.min(length, bytes.length * 2));
+            in.readFully(bytes, read, bytes.length - read);
+            read = bytes.length;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        URLModel model = (URLModel) o;
+
+        if (allowsHttp != model.allowsHttp) return false;
+        if (allowsSSL != model.allowsSSL) return false;
+        if (urlsCount != model.urlsCount) return false;
+        if (!segments.equals(model.segments)) return false;
+        return queries.equals(model.queries);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = segments.hashCode();
+        result = 31 * result + queries.hashCode();
+        result = 31 * result + (allowsHttp ? 1 : 0);
+        result = 31 * result + (allowsSSL ? 1 : 0);
+        result = 31 * result + urlsCount;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return toPattern().pattern();
+    }
+}
@@ -0,0 +1,414 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Counted set of urls with their generalized model, which urls can be removed from as well as added to, for seed lists
+ * changing by a few urls at a time.
+ *
+ * Urls are counted by their text, and grouped by their segments. Each distinct list of segments is a leaf of a
+ * balanced tree whose nodes hold the generalization of their two children, the root holding the model. Adding an url
+ * with known segments, or removing one whose segments are still used, only updates counts; adding or removing a list
+ * of segments only generalizes again the nodes above its leaf, that is log n lists for n distinct lists. Nodes are
+ * generalized again lazily, on the next snapshot. Segments of the model also tell how many urls they were generalized
+ * from, see {@link #support()}.
+ *
+ * As the tree does not fold urls in the order they were added, models may differ from the ones of a
+ * {@link URLRegexBuilder} given the same urls, but they match all of them as well. Instances are not thread safe.
+ */
+public final class URLMultiset {
+
+    /**
+     * Distinct list of segments, and the number of urls having it
+     */
+    private static final class Leaf {
+
+        final String key;
+        final List<URLSegment> segments;
+        int slot;
+        int count;
+
+        Leaf(String key, List<URLSegment> segments) {
+            this.key = key;
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * Distinct url, and the parts of it needed to forget it
+     */
+    private static final class Entry {
+
+        final Leaf leaf;
+        final int protocol;
+        final boolean query;
+        int count;
+
+        Entry(Leaf leaf, int protocol, boolean query) {
+            this.leaf = leaf;
+            this.protocol = protocol;
+            this.query = query;
+        }
+    }
+
+    private static final int NO_PROTOCOL = 0;
+    private static final int HTTP = 1;
+    private static final int SSL = 2;
+
+    private final URLTokenizer tokenizer = new URLTokenizer();
+    private final Collector collector = new Collector();
+    private final TokenDictionary dictionary = new TokenDictionary();
+    private final StringBuilder leafKey = new StringBuilder();
+
+    private final Map<String, Entry> urls = new LinkedHashMap<>();
+    private final Map<String, Leaf> leaves = new HashMap<>();
+
+    /**
+     * Tree of generalized lists, node i having children 2i and 2i + 1, and leaf slot s being node capacity + s. Empty
+     * slots and subtrees are null, and nodes to generalize again are dirty.
+     */
+    private List<URLSegment>[] nodes = newNodes(2);
+    private boolean[] dirty = new boolean[2];
+    private int capacity = 1;
+    private int slots = 0;
+
+    private QueryModel queries = new QueryModel();
+    private boolean queriesStale = false;
+
+    private int urlsCount = 0;
+    private int httpCount = 0;
+    private int sslCount = 0;
+    private long generalizeCount = 0;
+
+    /**
+     * Add an url, once more if it was already added.
+     * @param url
+     * @return this set
+     */
+    public URLMultiset add(CharSequence url) {
+        String text = url.toString();
+        Entry entry = urls.get(text);
+        if (entry == null) {
+            collector.reset(true, queriesStale ? null : queries);
+            tokenizer.tokenize(text, true, collector);
+            entry = new Entry(leaf(collector.segments), collector.protocol, collector.query);
+            urls.put(text, entry);
+        } else if (!queriesStale && entry.query) {
+            collector.reset(false, queries);
+            tokenizer.tokenize(text, false, collector);
+        }
+
+        entry.count++;
+        count(entry, 1);
+        return this;
+    }
+
+    /**
+     * Add all given urls, in iteration order.
+     * @param urls
+     * @return this set
+     */
+    public URLMultiset addAll(Iterable<? extends CharSequence> urls) {
+        for (CharSequence url : urls) {
+            add(url);
+        }
+        return this;
+    }
+
+    /**
+     * Remove one occurrence of an url.
+     * @param url
+     * @return if the url was in the set
+     */
+    public boolean remove(CharSequence url) {
+        String text = url.toString();
+        Entry entry = urls.get(text);
+        if (entry == null)
+            return false;
+
+        if (--entry.count == 0)
+            urls.remove(text);
+        if (entry.query)
+            queriesStale = true;
+        count(entry, -1);
+        return true;
+    }
+
+    /**
+     * @param url
+     * @return number of times the url is in the set
+     */
+    public int count(CharSequence url) {
+        Entry entry = urls.get(url.toString());
+        return entry == null ? 0 : entry.count;
+    }
+
+    /**
+     * @return number of urls in the set, repeated ones included
+     */
+    public int size() {
+        return urlsCount;
+    }
+
+    /**
+     * @return number of distinct urls in the set
+     */
+    public int distinctCount() {
+        return urls.size();
+    }
+
+    /**
+     * @return the most general regex matching all urls of the set
+     */
+    public Pattern snapshot() {
+        List<URLSegment> generalized = fold();
+        QueryModel queries = queries();
+        return URLRegex.buildPattern(generalized, queries, urlsCount != queries.queriesCount(), httpCount > 0,
+            sslCount > 0, false);
+    }
+
+    /**
+     * @return the generalized model of all urls of the set
+     */
+    public URLModel snapshotModel() {
+        return new URLModel(fold(), queries(), httpCount > 0, sslCount > 0, urlsCount);
+    }
+
+    /**
+     * @return for each segment of {@link #snapshotModel()}, the number of urls of the set it was generalized from,
+     * lower than the size of the set for optional segments
+     */
+    public int[] support() {
+        List<URLSegment> generalized = fold();
+        int[] support = new int[generalized.size()];
+        for (int i = 0; i < support.length; i++) {
+            support[i] = generalized.get(i).support;
+        }
+        return support;
+    }
+
+    /**
+     * @return number of lists of segments generalized so far, for tests
+     */
+    long generalizeCount() {
+        return generalizeCount;
+    }
+
+    /**
+     * Update the counts of the set and of the leaf of an url.
+     * @param entry
+     * @param delta 1 when adding the url, -1 when removing it
+     */
+    private void count(Entry entry, int delta) {
+        urlsCount += delta;
+        if (entry.protocol == HTTP)
+            httpCount += delta;
+        else if (entry.protocol == SSL)
+            sslCount += delta;
+
+        Leaf leaf = entry.leaf;
+        leaf.count += delta;
+        if (leaf.count == 0) {
+            leaves.remove(leaf.key);
+            update(leaf.slot, null);
+            compact();
+        } else {
+            update(leaf.slot, weighted(leaf.segments, leaf.count));
+        }
+    }
+
+    /**
+     * @param segments segments of a new url
+     * @return the leaf of these segments, created in a new slot if needed
+     */
+    private Leaf leaf(List<URLSegment> segments) {
+        leafKey.setLength(0);
+        for (URLSegment segment : segments) {
+            leafKey.append(segment.getContent()).append('\0').append(segment.getSeparator()).append('\0');
+        }
+        String key = leafKey.toString();
+
+        Leaf leaf = leaves.get(key);
+        if (leaf == null) {
+            leaf = new Leaf(key, segments);
+            leaves.put(key, leaf);
+            if (slots == capacity)
+                grow();
+            leaf.slot = slots++;
+        }
+        return leaf;
+    }
+
+    /**
+     * Set the list of a leaf slot and mark the nodes above it to be generalized again.
+     */
+    private void update(int slot, List<URLSegment> segments) {
+        int node = capacity + slot;
+        nodes[node] = segments;
+        for (node >>>= 1; node > 0 && !dirty[node]; node >>>= 1) {
+            dirty[node] = true;
+        }
+    }
+
+    /**
+     * Pack the remaining leaves in the first slots once half of the slots are empty, so that the tree stays
+     * proportional to the number of distinct lists. All nodes are generalized again.
+     */
+    private void compact() {
+        if (2 * leaves.size() > slots)
+            return;
+
+        List<Leaf> remaining = new ArrayList<>(leaves.values());
+        remaining.sort(Comparator.comparingInt(leaf -> leaf.slot));
+
+        int size = 1;
+        while (size < remaining.size()) {
+            size *= 2;
+        }
+        capacity = size;
+        nodes = newNodes(2 * capacity);
+        dirty = new boolean[2 * capacity];
+        slots = 0;
+        for (Leaf leaf : remaining) {
+            leaf.slot = slots++;
+            update(leaf.slot, weighted(leaf.segments, leaf.count));
+        }
+    }
+
+    /**
+     * Double the number of slots. The current tree becomes the left subtree of the new root, node n moving to
+     * n + highestOneBit(n), so that only the new root has to be generalized.
+     */
+    private void grow() {
+        List<URLSegment>[] grown = newNodes(4 * capacity);
+        boolean[] grownDirty = new boolean[4 * capacity];
+        for (int node = 1; node < 2 * capacity; node++) {
+            grown[node + Integer.highestOneBit(node)] = nodes[node];
+            grownDirty[node + Integer.highestOneBit(node)] = dirty[node];
+        }
+        grownDirty[1] = true;
+        nodes = grown;
+        dirty = grownDirty;
+        capacity *= 2;
+    }
+
+    /**
+     * @return the generalized list of the root, after generalizing again the dirty nodes
+     */
+    private List<URLSegment> fold() {
+        List<URLSegment> root = fold(1);
+        return root == null ? Collections.<URLSegment>emptyList() : root;
+    }
+
+    private List<URLSegment> fold(int node) {
+        if (node >= capacity || !dirty[node])
+            return nodes[node];
+
+        List<URLSegment> left = fold(2 * node);
+        List<URLSegment> right = fold(2 * node + 1);
+        if (left == null || right == null) {
+            nodes[node] = left == null ? right : left;
+        } else {
+            // Generalizing changes the segments it is given, which are shared with the children
+            nodes[node] = URLRegex.generalize(copy(left), copy(right), dictionary);
+            generalizeCount++;
+        }
+        dirty[node] = false;
+        return nodes[node];
+    }
+
+    /**
+     * @return the query model of the urls of the set, collected again from distinct urls after removals
+     */
+    private QueryModel queries() {
+        if (!queriesStale)
+            return queries;
+
+        queries = new QueryModel();
+        for (Map.Entry<String, Entry> url : urls.entrySet()) {
+            if (!url.getValue().query)
+                continue;
+
+            // Each url is tokenized once, and its parameters counted as many times as the url
+            QueryModel single = new QueryModel();
+            collector.reset(false, single);
+            tokenizer.tokenize(url.getKey(), false, collector);
+            for (int i = 0; i < url.getValue().count; i++) {
+                queries.merge(single);
+            }
+        }
+        queriesStale = false;
+        return queries;
+    }
+
+    private static List<URLSegment> weighted(List<URLSegment> segments, int count) {
+        List<URLSegment> copy = copy(segments);
+        for (URLSegment segment : copy) {
+            segment.support = count;
+        }
+        return copy;
+    }
+
+    private static List<URLSegment> copy(List<URLSegment> segments) {
+        List<URLSegment> copy = new ArrayList<>(segments.size());
+        for (URLSegment segment : segments) {
+            URLSegment copied = new URLSegment(segment.getContent(), segment.getSeparator(), segment.isOptional());
+            copied.support = segment.support;
+            copy.add(copied);
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<URLSegment>[] newNodes(int size) {
+        return (List<URLSegment>[]) new List<?>[size];
+    }
+
+    /**
+     * Collects the parts of the url being added, its query parameters going straight to a query model
+     */
+    private static class Collector implements URLTokenizer.Handler {
+
+        private List<URLSegment> segments;
+        private QueryModel queries;
+        private int protocol;
+        private boolean query;
+
+        /**
+         * @param withSegments if segments are collected
+         * @param queries receives the query parameters, or null to skip them
+         */
+        void reset(boolean withSegments, QueryModel queries) {
+            this.segments = withSegments ? new ArrayList<URLSegment>() : null;
+            this.queries = queries;
+            protocol = NO_PROTOCOL;
+            query = false;
+        }
+
+        @Override
+        public void protocol(boolean ssl) {
+            protocol = ssl ? SSL : HTTP;
+        }
+
+        @Override
+        public void segment(String token, String separator) {
+            segments.add(new URLSegment(token, separator));
+        }
+
+        @Override
+        public void query() {
+            query = true;
+            if (queries != null)
+                queries.query();
+        }
+
+        @Override
+        public void queryParameter(String key, QueryModel.ValueType value) {
+            if (queries != null)
+                queries.add(key, value);
+        }
+    }
+}
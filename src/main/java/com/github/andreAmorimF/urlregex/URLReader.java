@@ -0,0 +1,207 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Feeds newline delimited urls from files and streams into a builder or an {@link URLArena}, without holding them on
+ * heap. Plain files are memory mapped in chunks, gzipped files and streams are read through a growable byte buffer.
+ *
+ * Lines are scanned as bytes: lines made of ASCII chars only are handed over as views over the bytes, the others are
+ * decoded as UTF-8. Empty lines are skipped and a trailing '\r' is dropped. Reading stops on the url the builder
+ * converges with, if it has a convergence window. Instances are not thread safe.
+ */
+final class URLReader {
+
+    /**
+     * Receives the urls read
+     */
+    interface Sink {
+
+        /**
+         * @param url view valid during the call only
+         * @return if reading should go on
+         */
+        boolean accept(CharSequence url);
+    }
+
+    /**
+     * Size of the file regions mapped at once
+     */
+    static final int CHUNK_SIZE = 1 << 28;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Sink sink;
+    private final AsciiSequence line = new AsciiSequence();
+
+    /**
+     * Sink stopped reading, for instance as the builder converged, see
+     * {@link URLRegexBuilder#withConvergenceWindow(int)}
+     */
+    private boolean converged = false;
+
+    /**
+     * @param builder builder receiving the urls read
+     */
+    URLReader(URLRegexBuilder builder) {
+        this(url -> builder.add(url).convergedAfter() != builder.size());
+    }
+
+    /**
+     * @param sink receives the urls read
+     */
+    URLReader(Sink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Hand each line of the file to the sink. Gzipped files are detected by their magic number.
+     * @param path
+     * @throws IOException
+     */
+    void read(Path path) throws IOException {
+        if (isGzip(path)) {
+            try (InputStream in = Files.newInputStream(path)) {
+                read(in);
+            }
+        } else {
+            read(path, CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Hand each line of the plain file to the sink, mapping it chunkSize bytes at a time.
+     * @param path
+     * @param chunkSize size of the regions mapped at once, grown when a line does not fit
+     * @throws IOException
+     */
+    void read(Path path, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long position = 0;
+            int window = chunkSize;
+            while (position < size && !converged) {
+                long length = Math.min(window, size - position);
+                boolean last = position + length == size;
+                int consumed = scan(channel.map(FileChannel.MapMode.READ_ONLY, position, length), last);
+
+                // A line spans the whole region, map a larger one
+                if (consumed == 0 && !last) {
+                    if (window == Integer.MAX_VALUE)
+                        throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes at offset " + position);
+                    window = (int) Math.min(Integer.MAX_VALUE, window * 2L);
+                    continue;
+                }
+
+                position += consumed;
+                window = chunkSize;
+            }
+        }
+    }
+
+    /**
+     * Hand each line of the stream to the sink. Gzipped streams are detected by their magic number. The stream is
+     * read until its end, or until the sink stops reading, but not closed.
+     * @param in
+     * @throws IOException
+     */
+    void read(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        byte[] magic = new byte[2];
+        int read = pushback.read(magic);
+        while (read == 1) {
+            int next = pushback.read(magic, 1, 1);
+            if (next < 0)
+                break;
+            read += next;
+        }
+        if (read > 0)
+            pushback.unread(magic, 0, read);
+        InputStream source = read == 2 && isGzip(magic) ? new GZIPInputStream(pushback, BUFFER_SIZE) : pushback;
+
+        byte[] bytes = new byte[BUFFER_SIZE];
+        int limit = 0;
+        while (!converged) {
+            int n = source.read(bytes, limit, bytes.length - limit);
+            if (n < 0) {
+                scan(ByteBuffer.wrap(bytes, 0, limit), true);
+                return;
+            }
+
+            limit += n;
+            int consumed = scan(ByteBuffer.wrap(bytes, 0, limit), false);
+            System.arraycopy(bytes, consumed, bytes, 0, limit - consumed);
+            limit -= consumed;
+
+            // A line fills the whole buffer
+            if (limit == bytes.length)
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+    }
+
+    /**
+     * Hand the complete lines of the buffer to the sink, and the last one too if the buffer ends the input.
+     * @return number of bytes consumed
+     */
+    private int scan(ByteBuffer buffer, boolean last) {
+        final int end = buffer.limit();
+        int start = 0;
+        boolean ascii = true;
+        for (int i = 0; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                emit(buffer, start, i, ascii);
+                start = i + 1;
+                ascii = true;
+                if (converged)
+                    return start;
+            } else if (b < 0) {
+                ascii = false;
+            }
+        }
+
+        if (last && start < end) {
+            emit(buffer, start, end, ascii);
+            start = end;
+        }
+        return start;
+    }
+
+    private void emit(ByteBuffer buffer, int start, int end, boolean ascii) {
+        if (end > start && buffer.get(end - 1) == '\r')
+            end--;
+        if (end == start)
+            return;
+
+        if (ascii) {
+            line.reset(buffer, start, end);
+            converged = !sink.accept(line);
+        } else {
+            ByteBuffer bytes = buffer.duplicate();
+            bytes.limit(end);
+            bytes.position(start);
+            converged = !sink.accept(StandardCharsets.UTF_8.decode(bytes));
+        }
+    }
+
+    private static boolean isGzip(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] magic = new byte[2];
+            return in.read(magic) == 2 && isGzip(magic);
+        }
+    }
+
+    private static boolean isGzip(byte[] magic) {
+        return (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+    }
+}
@@ -2,233 +2,297 @@ package com.github.andreAmorimF.urlregex;
 
 import org.apache.commons.lang.StringUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 public class URLRegex {
 
-    private static final Pattern DEFAUL_START_PATTERN = Pattern.compile("^(https?://)");
-    private static final Pattern URL_TOKENS_PATTERN = Pattern.compile("([^\\/]+)(\\/?)");
-    private static final Pattern QUERY_SPLIT_PATTERN = Pattern.compile("&?(\\w+)(=[^&]+)?");
-    private static final Pattern METACHARACTER = Pattern.compile("([.?*+^$\\[\\]\\\\(){}|\\-])");
     private static final Pattern NUMBERCHARACTER = Pattern.compile("\\d+");
 
-    private static String NUMBER_PART = "NUM";
-    private static String NUMBER_PATTERN_PART = "\\d+";
-    private static String WILDCARD_PATTERN_PART(String separator, boolean optional) {
-        String wildcard = "*";
-        if (!optional)
-            wildcard = "+";
+    /**
+     * Below this number of urls, a parallel build folds the urls sequentially
+     */
+    static final int PARALLEL_THRESHOLD = 1024;
 
-        if (separator == null)
-            return "[^/?]" + wildcard;
+    private static String NUMBER_PART = "NUM";
 
-        return "[^" + separator + "]" + wildcard;
+    /**
+     * @param urls
+     * @return the most general regex matching all urls
+     */
+    public static Pattern buildPattern(List<String> urls) {
+        URLRegexBuilder builder = new URLRegexBuilder(true);
+        builder.addAll(urls);
+        return builder.snapshot();
     }
 
     /**
+     * Same as {@link #buildPattern(List)}, reporting timings and counters of the build to metrics.
      * @param urls
+     * @param metrics
      * @return the most general regex matching all urls
      */
-    public static Pattern buildPattern(List<String> urls) {
+    public static Pattern buildPattern(List<String> urls, URLRegexMetrics metrics) {
+        URLRegexBuilder builder = new URLRegexBuilder(true).withMetrics(metrics);
+        builder.addAll(urls);
+        return builder.snapshot();
+    }
 
-        String splitChar = "?";
-        String defaultEndChar = "$";
-
-        Map<String, List<URLSegment>> tokensByUrl = new LinkedHashMap<>();
-        Map<String, String> queries = new LinkedHashMap<>();
-
-        int queriesCount = 0;
-        boolean allowsSSL = false;
-        boolean allowsHttp = false;
-        Matcher urlSegmentMatcher = URL_TOKENS_PATTERN.matcher("");
-        Matcher queryPartMatcher = QUERY_SPLIT_PATTERN.matcher("");
-        Matcher defaultStartMatcher = DEFAUL_START_PATTERN.matcher("");
-        for (String url : urls) {
-
-            // Check protocol of current URL
-            defaultStartMatcher.reset(url);
-            if (defaultStartMatcher.find()) {
-                String protocol = defaultStartMatcher.group(1);
-                if (protocol.equalsIgnoreCase("http://"))
-                    allowsHttp = true;
-                if (protocol.equalsIgnoreCase("https://"))
-                    allowsSSL = true;
-            }
+    /**
+     * Same as {@link #buildPattern(List)}, but urls are tokenized and generalized in parallel: chunks of urls are
+     * folded independently and the partial generalized segment lists are merged in a tree shaped reduction.
+     * Repeated urls are only skipped inside the same chunk.
+     *
+     * Known limit: generalization depends on the folding order, and merging partial lists is not the same as folding
+     * their urls one by one, so above {@link #PARALLEL_THRESHOLD} urls the pattern may differ from the sequential one,
+     * either narrower or wider, while still matching all urls. For instance, folding each of viewforum_10-1.htm,
+     * viewforum_4767.htm, viewtopic_49097-1.htm and a few more forum urls in its own chunk gives
+     * {@code view[^?]+\d+\.htm} where the sequential build gives {@code view[^?]+\.htm}.
+     * @param urls
+     * @param pool pool running the generalization
+     * @return a general regex matching all urls
+     */
+    public static Pattern buildPattern(List<String> urls, ForkJoinPool pool) {
+        return buildPattern(urls, pool, PARALLEL_THRESHOLD);
+    }
 
-            url = url.replaceFirst(DEFAUL_START_PATTERN.pattern(), "");
-
-            // Breaks URL into two parts bettwen the '?' char
-            int split = -1;
-            if (url.contains(splitChar))
-                split = url.indexOf(splitChar) + 1;
-
-            String ulrPart;
-            String queryPart = null;
-            if (split > -1) {
-                ulrPart = url.substring(0, split - 1);
-                queryPart = url.substring(split);
-            } else
-                ulrPart = url;
-
-            // Discover segments of urls
-            List<URLSegment> elements = new ArrayList<>();
-            urlSegmentMatcher.reset(ulrPart);
-            boolean first = true;
-            while (urlSegmentMatcher.find()) {
-                String token = urlSegmentMatcher.group(1);
-                String separator = urlSegmentMatcher.group(2);
-                if (first) {
-                    token = reverseDomainToken(token);
-                    first = false;
-                }
+    /**
+     * Same as {@link #buildPattern(List, ForkJoinPool)}, for urls stored in an arena. Urls are tokenized over the bytes
+     * of the arena without being copied as strings, and, as with {@link #buildPattern(Path)}, repeated urls are folded
+     * again rather than remembered.
+     * @param urls
+     * @param pool pool running the generalization
+     * @return a general regex matching all urls
+     */
+    public static Pattern buildPattern(URLArena urls, ForkJoinPool pool) {
+        return pool.invoke(new GeneralizeTask(urls, 0, urls.size(), PARALLEL_THRESHOLD, false)).snapshot();
+    }
 
-                URLSegment part = new URLSegment(token, separator);
-                elements.add(part);
-            }
+    static Pattern buildPattern(List<String> urls, ForkJoinPool pool, int threshold) {
+        return pool.invoke(new GeneralizeTask(urls, 0, urls.size(), threshold, true)).snapshot();
+    }
+
+    /**
+     * Same as {@link #buildPatterns(List, ForkJoinPool)}, with the common pool.
+     * @param urls
+     * @return one regex per cluster of similar urls
+     */
+    public static List<Pattern> buildPatterns(List<String> urls) {
+        return buildPatterns(urls, ForkJoinPool.commonPool());
+    }
 
-            // For the given url, index all discovered segments
-            tokensByUrl.put(url, elements);
-
-            // Discovery of query parameters on the url
-            if ( queryPart!= null ){
-                queriesCount++;
-                queryPartMatcher.reset(queryPart);
-                while (queryPartMatcher.find()) {
-                    String query = queryPartMatcher.group(1);
-                    String value = queryPartMatcher.group(2);
-                    queries.put(query, value);
+    /**
+     * Build one regex per cluster of similar urls instead of one regex over all urls, for sites mixing kinds of
+     * pages. Urls are clustered by the shingles of their segments, see {@link URLClusters}, and clusters are generalized
+     * in parallel, large ones as with {@link #buildPattern(List, ForkJoinPool)}.
+     * @param urls
+     * @param pool pool running the clustering and the generalization
+     * @return one regex per cluster, in order of the first url of each cluster
+     */
+    public static List<Pattern> buildPatterns(List<String> urls, ForkJoinPool pool) {
+        List<List<String>> clusters = URLClusters.cluster(urls, pool);
+        List<GeneralizeTask> tasks = new ArrayList<>(clusters.size());
+        for (List<String> cluster : clusters) {
+            tasks.add(new GeneralizeTask(cluster, 0, cluster.size(), PARALLEL_THRESHOLD, true));
+        }
+        return pool.invoke(new RecursiveTask<List<Pattern>>() {
+            @Override
+            protected List<Pattern> compute() {
+                List<Pattern> patterns = new ArrayList<>(tasks.size());
+                for (GeneralizeTask task : invokeAll(tasks)) {
+                    patterns.add(task.join().snapshot());
                 }
+                return patterns;
             }
-        }
-
-        boolean hasQueries = (queries.size() > 0);
-        boolean queriesOptional = (urls.size() != queriesCount);
-
-        String startPattern = "";
-        String pattern = generalizeSegments(tokensByUrl);
-
-        // Add queries patterns
-        if (hasQueries) pattern += addQueryParams(queries, queriesOptional);
-
-        // Add protocol patterns
-        if (allowsHttp && allowsSSL) startPattern = "^https?://";
-        else if (allowsSSL) startPattern = "^https://";
-        else if (allowsHttp) startPattern = "^http://";
+        });
+    }
 
-        return Pattern.compile(startPattern + pattern + defaultEndChar);
+    /**
+     * Build the regex of a newline delimited file of urls, without loading it on heap. Plain files are memory mapped
+     * and gzipped files are decompressed on the fly. Empty lines are skipped and, as with {@link URLRegexBuilder},
+     * repeated urls are folded again.
+     * @param path file of urls, one per line, possibly gzipped
+     * @return the most general regex matching all urls of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static Pattern buildPattern(Path path) throws IOException {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        new URLReader(builder).read(path);
+        return builder.snapshot();
     }
 
     /**
-     * Build the regex pattern by escaping and joining url segments.
-     * @return the regex pattern for the discovered url segments.
+     * Same as {@link #buildPattern(Path)}, for a stream of urls, possibly gzipped. The stream is read until its end
+     * but not closed.
+     * @param in stream of urls, one per line
+     * @return the most general regex matching all urls of the stream
+     * @throws IOException if the stream cannot be read
      */
-    private static String generalizeSegments(Map<String, List<URLSegment>> tokensByUrl) {
+    public static Pattern buildPattern(InputStream in) throws IOException {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        new URLReader(builder).read(in);
+        return builder.snapshot();
+    }
 
-        List<URLSegment> generalized = new ArrayList<>();
-        for (Map.Entry<String, List<URLSegment>> entry : tokensByUrl.entrySet()) {
-            generalized = generalized.isEmpty() ? entry.getValue() : generalize(generalized, entry.getValue());
-        }
+    /**
+     * Build the regex of a stream of urls, folding them as they come. Repeated urls are folded again. Parallel
+     * streams fold their parts independently and merge the partial models, see {@link #buildPattern(List, ForkJoinPool)}.
+     * @param urls
+     * @return a general regex matching all urls of the stream
+     */
+    public static Pattern buildPattern(Stream<? extends CharSequence> urls) {
+        return urls.collect(URLRegexBuilder::new, URLRegexBuilder::add, URLRegexBuilder::merge).snapshot();
+    }
 
-        // Normalize result
-        boolean wrapped = false;
-        List<String> result = new ArrayList<>();
-        ListIterator<URLSegment> it = generalized.listIterator();
-        while (it.hasNext()) {
-            boolean start = !(it.hasPrevious());
-            URLSegment part = it.next();
-            String token = part.getContent();
-            if (start)
-                token = reverseDomainToken(token);
-
-            int wildcardPos = token.indexOf("*");
-            int requiredWildCardPos = token.indexOf("+");
-            int numberPos = token.indexOf(NUMBER_PART);
-            if (wildcardPos >= 0 || numberPos >= 0 || requiredWildCardPos >= 0) {
-                String[] subtokens = token.split("((?<=\\*)|(?=\\*)|(?<=\\+)|(?=\\+)|(?<=NUM)|(?=NUM))");
-                for (int j = 0 ; j < subtokens.length; j++) {
-                    String subtoken = subtokens[j];
-                    if (subtoken.equals("+") && !it.hasNext())
-                        subtokens[j] =  WILDCARD_PATTERN_PART("?", false);
-                    else if (subtoken.equals("+"))
-                        subtokens[j] =  WILDCARD_PATTERN_PART("/", false);
-                    else if (subtoken.equals("*") && !it.hasNext())
-                        subtokens[j] =  WILDCARD_PATTERN_PART("?", true);
-                    else if (subtoken.equals("*"))
-                        subtokens[j] =  WILDCARD_PATTERN_PART("/", true);
-                    else if (subtoken.equals("NUM"))
-                        subtokens[j] =  NUMBER_PATTERN_PART;
-                    else if (!subtoken.isEmpty())
-                        subtokens[j] = escapeToken(subtoken);
-                }
+    /**
+     * Same as {@link #buildPattern(List)}, bounded by a time budget: once it runs out, the urls left are skipped and
+     * the result is the pattern of the urls folded so far, flagged as partial. Interrupting the thread also stops the
+     * build, which then returns a partial result with the thread still interrupted.
+     * @param urls
+     * @param timeout time budget of the build
+     * @param unit unit of the timeout
+     * @return the pattern of all urls, or of the first ones if the budget ran out
+     */
+    public static BuildResult buildPattern(List<String> urls, long timeout, TimeUnit unit) {
+        return buildPattern(urls, Integer.MAX_VALUE, timeout, unit);
+    }
 
-                token = StringUtils.join(subtokens);
-            } else {
-                token = escapeToken(token);
-            }
+    /**
+     * Same as {@link #buildPattern(List, long, TimeUnit)}, bounded by a number of urls as well.
+     * @param urls
+     * @param maxUrls number of urls processed at most
+     * @param timeout time budget of the build
+     * @param unit unit of the timeout
+     * @return the pattern of all urls, or of the first ones if the budget ran out
+     */
+    public static BuildResult buildPattern(List<String> urls, int maxUrls, long timeout, TimeUnit unit) {
+        Thread thread = Thread.currentThread();
+        return build(urls, maxUrls, System.nanoTime() + unit.toNanos(timeout), thread::isInterrupted);
+    }
 
-            if (part.optional && !wrapped) {
-                token = "(" + token;
-                wrapped = true;
+    /**
+     * Build the pattern of the urls with the executor. Cancelling the future stops the build before the next url is
+     * folded.
+     * @param urls
+     * @param executor runs the build
+     * @return the future pattern, as {@link #buildPattern(List)} would build it
+     */
+    public static CompletableFuture<Pattern> buildPatternAsync(List<String> urls, Executor executor) {
+        CompletableFuture<Pattern> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                BuildResult result = build(urls, Integer.MAX_VALUE, Long.MAX_VALUE, future::isDone);
+                future.complete(result.getPattern());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
             }
+        });
+        return future;
+    }
 
-            boolean optionalSeparator = false;
-            if (it.hasNext()) {
-                URLSegment next = generalized.get(it.nextIndex());
-                if (next != null && !next.optional && wrapped) {
-                    token += part.getSeparator();
-                    token += ")?";
-                    wrapped = false;
-                    optionalSeparator = true;
-                }
-            } else if (wrapped) {
-                token += ")?";
+    /**
+     * Same as {@link #buildPatternAsync(List, Executor)}, bounded by a time budget, see
+     * {@link #buildPattern(List, long, TimeUnit)}.
+     * @param urls
+     * @param executor runs the build
+     * @param timeout time budget of the build, from the time it starts running
+     * @param unit unit of the timeout
+     * @return the future pattern of all urls, or of the first ones if the budget ran out
+     */
+    public static CompletableFuture<BuildResult> buildPatternAsync(List<String> urls, Executor executor, long timeout,
+                                                                   TimeUnit unit) {
+        CompletableFuture<BuildResult> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(build(urls, Integer.MAX_VALUE, System.nanoTime() + unit.toNanos(timeout),
+                    future::isDone));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
             }
+        });
+        return future;
+    }
 
-            result.add(token);
-            if (!optionalSeparator) result.add(part.getSeparator());
+    /**
+     * Fold urls in order until they are all folded, the budget runs out or the build is stopped. The budget and the
+     * stop condition are checked before each url, so that the build stops within the time of folding one url.
+     * @param urls
+     * @param maxUrls number of urls processed at most
+     * @param deadline value of {@link System#nanoTime()} past which the build stops, or Long.MAX_VALUE for none
+     * @param stopped if the build should stop, such as when it is cancelled
+     * @return the pattern of the urls processed
+     */
+    private static BuildResult build(List<String> urls, int maxUrls, long deadline, BooleanSupplier stopped) {
+        URLRegexBuilder builder = new URLRegexBuilder(true);
+        int processed = 0;
+        Iterator<String> iterator = urls.iterator();
+        while (iterator.hasNext()) {
+            if (processed == maxUrls || stopped.getAsBoolean() ||
+                (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0))
+                return new BuildResult(builder.snapshot(), true, processed);
+
+            builder.add(iterator.next());
+            processed++;
         }
-
-        return StringUtils.join(result, "");
+        return new BuildResult(builder.snapshot(), false, processed);
     }
 
     /**
-     * Add query parameters to the regular expression
-     * @param queries
-     * @return regex string matching additional query parameters
+     * Build the final regex from an already generalized list of url segments and the discovered query parameters.
+     * @param generalized generalized url segments
+     * @param queries query parameters discovered on the urls
+     * @param queriesOptional whether some url had no query part
+     * @param allowsHttp whether some url used the http protocol
+     * @param allowsSSL whether some url used the https protocol
+     * @return the regex pattern
      */
-    private static String addQueryParams(Map<String, String> queries, boolean queriesOptional) {
-        StringBuilder builder = new StringBuilder();
-        builder.append("\\??(");
-
-        boolean hasValueQuery = false;
-        boolean hasNoValueQuery = false;
-        Iterator<Map.Entry<String, String>> it = queries.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry<String, String> entry = it.next();
-            String queryKey = entry.getKey();
-            String queryValue = entry.getValue();
-            if (queryValue != null && !queryValue.isEmpty()) {
-                hasValueQuery = true;
-
-                builder.append("[&;]?");
-                builder.append(queryKey);
-                builder.append("=[^&;]+");
+    static Pattern buildPattern(List<URLSegment> generalized, QueryModel queries, boolean queriesOptional,
+                                boolean allowsHttp, boolean allowsSSL) {
+        return buildPattern(generalized, queries, queriesOptional, allowsHttp, allowsSSL, false);
+    }
 
-                if (it.hasNext()) builder.append("|");
-            } else {
-                hasNoValueQuery = true;
-            }
-        }
+    /**
+     * Same as {@link #buildPattern(List, QueryModel, boolean, boolean, boolean)}, see
+     * {@link #buildRegex(List, QueryModel, boolean, boolean, boolean, boolean)} for the possessive form.
+     * @return the regex pattern
+     */
+    static Pattern buildPattern(List<URLSegment> generalized, QueryModel queries, boolean queriesOptional,
+                                boolean allowsHttp, boolean allowsSSL, boolean possessive) {
+        return Pattern.compile(buildRegex(generalized, queries, queriesOptional, allowsHttp, allowsSSL, possessive));
+    }
 
-        if (hasNoValueQuery) {
-            if (hasValueQuery) builder.append("|");
-            builder.append("[^&;=]+");
-        }
+    /**
+     * Same as {@link #buildPattern(List, QueryModel, boolean, boolean, boolean)}, without compiling the regex.
+     * @return the regex
+     */
+    static String buildRegex(List<URLSegment> generalized, QueryModel queries, boolean queriesOptional,
+                             boolean allowsHttp, boolean allowsSSL) {
+        return buildRegex(generalized, queries, queriesOptional, allowsHttp, allowsSSL, false);
+    }
 
-        builder = (queriesOptional ? builder.append(")*") : builder.append(")+"));
-        return builder.toString();
+    /**
+     * Same as {@link #buildRegex(List, QueryModel, boolean, boolean, boolean)}, possibly in possessive form: matching
+     * the same urls, but with possessive quantifiers and atomic groups wherever giving back characters cannot lead to a
+     * match, so that the query parameters of long non matching urls are scanned once instead of being split every
+     * possible way. The possessive form is not understood by {@link URLAutomaton}.
+     * @param possessive if the regex should be emitted in possessive form
+     * @return the regex
+     */
+    static String buildRegex(List<URLSegment> generalized, QueryModel queries, boolean queriesOptional,
+                             boolean allowsHttp, boolean allowsSSL, boolean possessive) {
+        return PatternEmitter.emit(PatternMinimizer.minimize(generalized), queries, queriesOptional, allowsHttp,
+            allowsSSL, possessive, PatternDialect.JAVA);
     }
 
     /**
@@ -236,44 +300,30 @@ public class URLRegex {
      * @param token
      * @return
      */
-    private static String reverseDomainToken(String token) {
-        String[] parts = token.split("\\.");
-        StringBuilder newToken = new StringBuilder();
-
-        for (int i = parts.length-1; i >= 0; i--) {
-            newToken.append(parts[i]);
-            if (i > 0)
-                newToken.append(".");
-        }
-        return newToken.toString();
+    static String reverseDomainToken(String token) {
+        return new URLTokenizer().reverseDomain(token, 0, token.length());
     }
 
     /**
-     * Escape special characters on input string for fitting it into regular expression.
-     * @param token input string
-     * @return escaped string
+     * Give the score of matching segment s1 against segment s2. This score is obtained by verifying the distance between those two segments.
+     * @param s1 first segment
+     * @param s2 second segment
+     * @return match score between segment s1 and segment s2
      */
-    private static String escapeToken(String token) {
-        Matcher matcher = METACHARACTER.matcher(token);
-        Set<String> replaceThat = new LinkedHashSet<>();
-        while (matcher.find()) {
-            replaceThat.add(matcher.group(1));
-        }
-
-        for (String replace : replaceThat) {
-            token = token.replaceAll("\\" + replace, "\\\\" + replace);
-        }
-
-        return token;
+    static double matchScore(String s1, String s2) {
+        return matchScore(s1, s2, 0.0, Double.NEGATIVE_INFINITY);
     }
 
     /**
-     * Give the score of matching segment s1 against segment s2. This score is obtained by verifying the distance between those two segments.
+     * Same as {@link #matchScore(String, String)}, but gives up as soon as matching both segments cannot score at least
+     * as much as skipping one of them.
      * @param s1 first segment
      * @param s2 second segment
-     * @return match score between segment s1 and segment s2
+     * @param diagonal score of the alignment before both segments
+     * @param skip best score when skipping one of the segments
+     * @return match score between segment s1 and segment s2, or negative infinity if diagonal + score would be lower than skip
      */
-    private static double matchScore(String s1, String s2) {
+    static double matchScore(String s1, String s2, double diagonal, double skip) {
 
         if (s1 == null && s2 == null)
             return 0.5;
@@ -282,16 +332,66 @@ public class URLRegex {
         if (s1.equals(s2))
             return 1.0;
 
-        Matcher s1NumMatcher = NUMBERCHARACTER.matcher(s1);
-        Matcher s2NumMatcher = NUMBERCHARACTER.matcher(s2);
-        String s1WithoutNumber = s1NumMatcher.replaceAll(NUMBER_PART);
-        String s2WithoutNumber = s2NumMatcher.replaceAll(NUMBER_PART);
+        EditDistance distance = EditDistance.get();
+        if (distance.load(s1, s2))
+            return 1.0;
+
+        int length = distance.maxLength();
+        int atLeast = requiredDistance(length, diagonal, skip);
+        if (atLeast > length)
+            return Double.NEGATIVE_INFINITY;
+
+        int lev = distance.distance(atLeast);
+        if (lev < 0)
+            return Double.NEGATIVE_INFINITY;
+
+        return (lev * 0.5) / length;
+    }
+
+    /**
+     * Same as {@link #matchScore(String, String, double, double)}, for segments interned in a dictionary.
+     * @param dictionary dictionary holding both segments
+     * @param t1 id of the first segment
+     * @param t2 id of the second segment
+     * @param diagonal score of the alignment before both segments
+     * @param skip best score when skipping one of the segments
+     * @return match score between both segments, or negative infinity if diagonal + score would be lower than skip
+     */
+    static double matchScore(TokenDictionary dictionary, int t1, int t2, double diagonal, double skip) {
+
+        if (t1 == t2)
+            return 1.0;
 
-        if (s1WithoutNumber.equals(s2WithoutNumber))
+        int n1 = dictionary.normal(t1);
+        int n2 = dictionary.normal(t2);
+        if (n1 == n2)
             return 1.0;
 
-        return (StringUtils.getLevenshteinDistance(s1WithoutNumber, s2WithoutNumber) * 0.5) /
-            (s1WithoutNumber.length() > s2WithoutNumber.length() ? s1WithoutNumber.length() : s2WithoutNumber.length());
+        int length = Math.max(dictionary.length(n1), dictionary.length(n2));
+        int atLeast = requiredDistance(length, diagonal, skip);
+        if (atLeast > length)
+            return Double.NEGATIVE_INFINITY;
+
+        int lev = dictionary.distance(n1, n2, atLeast);
+        if (lev < 0)
+            return Double.NEGATIVE_INFINITY;
+
+        return (lev * 0.5) / length;
+    }
+
+    /**
+     * @return smallest distance for which matching is at least as good as skipping, or length + 1 if there is none
+     */
+    private static int requiredDistance(int length, double diagonal, double skip) {
+        if (skip <= diagonal)
+            return 0;
+
+        int atLeast = (int) Math.min(length + 1, Math.max(0, Math.ceil((skip - diagonal) * 2 * length)));
+        while (atLeast > 0 && diagonal + ((atLeast - 1) * 0.5) / length >= skip)
+            atLeast--;
+        while (atLeast <= length && diagonal + (atLeast * 0.5) / length < skip)
+            atLeast++;
+        return atLeast;
     }
 
     /**
@@ -319,6 +419,14 @@ public class URLRegex {
         if (s1.equals(s2))
             return s1;
 
+        return generalizeNormalized(s1, s2);
+    }
+
+    /**
+     * Same as {@link #generalizeStep(String, String)}, for different segments whose numbers are already replaced
+     */
+    private static String generalizeNormalized(String s1, String s2) {
+
         // Compute common prefix and common suffix of input segments
         String[] tokens = {s1, s2};
         String[] reverdTokens = {StringUtils.reverse(s1), StringUtils.reverse(s2)};
@@ -374,8 +482,45 @@ public class URLRegex {
         return a + "+" + b;
     }
 
-    private enum Direction {
-        MATCH, SKIP_P1, SKIP_P2;
+    /**
+     * Folds a range of urls, splitting it in halves until it is small enough to be folded sequentially
+     */
+    private static class GeneralizeTask extends RecursiveTask<URLRegexBuilder> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends CharSequence> urls;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        /**
+         * If repeated urls are folded only once
+         */
+        private final boolean distinct;
+
+        GeneralizeTask(List<? extends CharSequence> urls, int from, int to, int threshold, boolean distinct) {
+            this.urls = urls;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.distinct = distinct;
+        }
+
+        @Override
+        protected URLRegexBuilder compute() {
+            if (to - from <= threshold) {
+                URLRegexBuilder builder = new URLRegexBuilder(distinct);
+                return builder.addAll(urls.subList(from, to));
+            }
+
+            int middle = (from + to) >>> 1;
+            GeneralizeTask left = new GeneralizeTask(urls, from, middle, threshold, distinct);
+            GeneralizeTask right = new GeneralizeTask(urls, middle, to, threshold, distinct);
+            right.fork();
+            URLRegexBuilder result = left.compute();
+            return result.merge(right.join());
+        }
     }
 
     /**
@@ -385,46 +530,55 @@ public class URLRegex {
      * @return list of url segments, each one in a more general form
      */
     public static List<URLSegment> generalize(List<URLSegment> urlList1, List<URLSegment> urlList2) {
+        return generalize(urlList1, urlList2, new TokenDictionary());
+    }
+
+    /**
+     * Same as {@link #generalize(List, List)}, with segments interned in the given dictionary, which can be reused
+     * across calls so that segments seen before are neither normalized nor compared again.
+     * @param urlList1
+     * @param urlList2
+     * @param dictionary
+     * @return list of url segments, each one in a more general form
+     */
+    static List<URLSegment> generalize(List<URLSegment> urlList1, List<URLSegment> urlList2, TokenDictionary dictionary) {
+        return generalize(urlList1, urlList2, dictionary, 0, null);
+    }
+
+    /**
+     * Same as {@link #generalize(List, List, TokenDictionary)}, but segments are aligned within a band of diagonals,
+     * see {@link Alignment}.
+     * @param urlList1
+     * @param urlList2
+     * @param dictionary
+     * @param band maximum shift between aligned segments, or 0 to align without limit
+     * @param metrics receives the timings of alignment and generalization, may be null
+     * @return list of url segments, each one in a more general form
+     */
+    static List<URLSegment> generalize(List<URLSegment> urlList1, List<URLSegment> urlList2, TokenDictionary dictionary,
+                                       int band, URLRegexMetrics metrics) {
 
         final int len1 = urlList1.size();
         final int len2 = urlList2.size();
 
-        Direction dir[][] = new Direction[len1][len2];
-        double score[][] = new double[len1][len2];
+        dictionary.trim();
+        final int[] tokens1 = intern(urlList1, dictionary);
+        final int[] tokens2 = intern(urlList2, dictionary);
 
-        // Fill matrixes
-        for (int i = 0; i < len1; i++) {
-            dir[i][0] = Direction.SKIP_P2;
-            score[i][0] = 0.0;
-        }
+        long start = metrics == null ? 0 : System.nanoTime();
+        long distances = dictionary.editDistanceCount();
 
-        for (int j = 0; j < len2; j++) {
-            dir[0][j] = Direction.SKIP_P1;
-            score[0][j] = 0.0;
-        }
+        Alignment alignment = Alignment.get();
+        long cells = alignment.align(tokens1, tokens2, dictionary, band);
 
-        dir[0][0] = Direction.MATCH;
-
-        // Check scores between segments
-        for (int i = 1; i < len1; i++) {
-            for (int j = 1; j < len2; j++) {
-                double s1 = score[i][j - 1] + (urlList1.get(i) == null ? 0.5 : 0.0);
-                double s2 = score[i - 1][j] + (urlList2.get(j) == null ? 0.5 : 0.0);
-                double m = score[i - 1][j - 1] + matchScore(urlList1.get(i).getContent(),
-                    urlList2.get(j).getContent());
-
-                if (m >= s1 && m >= s2) {
-                    dir[i][j] = Direction.MATCH;
-                    score[i][j] = m;
-                } else if (s1 >= s2) {
-                    dir[i][j] = Direction.SKIP_P1;
-                    score[i][j] = s1;
-                } else {
-                    dir[i][j] = Direction.SKIP_P2;
-                    score[i][j] = s2;
-                }
-            }
+        if (metrics != null) {
+            long aligned = System.nanoTime();
+            metrics.time(URLRegexMetrics.Phase.ALIGN, aligned - start);
+            metrics.count(URLRegexMetrics.Counter.DP_CELLS, cells);
+            metrics.count(URLRegexMetrics.Counter.EDIT_DISTANCES, dictionary.editDistanceCount() - distances);
+            start = aligned;
         }
+        int wildcards = 0;
 
         int i = len1 - 1;
         int j = len2 - 1;
@@ -433,31 +587,37 @@ public class URLRegex {
         List<URLSegment> urlSegments = new ArrayList<>();
         while (i >= 0 && j >= 0) {
 
-            switch (dir[i][j]) {
-                case MATCH:
-                    String sg = generalizeStep(urlList1.get(i).getContent(), urlList2.get(j).getContent());
+            switch (alignment.direction(i, j)) {
+                case Alignment.MATCH:
+                    String sg = generalizeStep(dictionary, tokens1[i], tokens2[j]);
                     String separator = null;
                     if (urlList1.get(i).getSeparator().isEmpty() && !urlList2.get(j).getSeparator().isEmpty())
                         separator = urlList2.get(j).getSeparator().endsWith("?") ? urlList2.get(j).getSeparator() : urlList2.get(j).getSeparator() + "?";
                     else if (urlList2.get(j).getSeparator().isEmpty() && !urlList1.get(i).getSeparator().isEmpty())
                         separator = urlList1.get(i).getSeparator().endsWith("?") ? urlList1.get(i).getSeparator() : urlList1.get(i).getSeparator() + "?";
+                    else if (urlList2.get(j).getSeparator().endsWith("?"))
+                        separator = urlList2.get(j).getSeparator();
                     else
                         separator = urlList1.get(i).getSeparator();
 
+                    if (metrics != null && isWidened(sg, urlList1.get(i).getContent(), urlList2.get(j).getContent()))
+                        wildcards++;
+
                     if (sg != null) {
                         URLSegment segment = new URLSegment(sg, separator, urlList1.get(i).isOptional() || urlList2.get(j).isOptional());
+                        segment.support = urlList1.get(i).support + urlList2.get(j).support;
                         urlSegments.add(segment);
                     }
                     i--;
                     j--;
                     break;
-                case SKIP_P1:
+                case Alignment.SKIP_P1:
                     URLSegment segment2 = urlList2.get(j);
                     segment2.setOptional(true);
                     urlSegments.add(segment2);
                     j--;
                     break;
-                case SKIP_P2:
+                case Alignment.SKIP_P2:
                     URLSegment segment1 = urlList1.get(i);
                     segment1.setOptional(true);
                     urlSegments.add(segment1);
@@ -467,13 +627,54 @@ public class URLRegex {
         }
 
         Collections.reverse(urlSegments);
+
+        if (metrics != null) {
+            metrics.time(URLRegexMetrics.Phase.GENERALIZE_STEP, System.nanoTime() - start);
+            metrics.count(URLRegexMetrics.Counter.WILDCARDS, wildcards);
+        }
         return urlSegments;
     }
 
+    /**
+     * @return if generalizing s1 and s2 into sg introduced a wildcard
+     */
+    private static boolean isWidened(String sg, String s1, String s2) {
+        return sg != null && !sg.equals(s1) && !sg.equals(s2) && (sg.indexOf('+') >= 0 || sg.indexOf('*') >= 0);
+    }
+
+    /**
+     * Intern the content of each segment, making the segments share the canonical text of the dictionary.
+     * @return ids of the segments, in list order
+     */
+    private static int[] intern(List<URLSegment> urlList, TokenDictionary dictionary) {
+        int[] tokens = new int[urlList.size()];
+        for (int i = 0; i < tokens.length; i++) {
+            URLSegment segment = urlList.get(i);
+            tokens[i] = dictionary.intern(segment.getContent());
+            segment.setContent(dictionary.token(tokens[i]));
+        }
+        return tokens;
+    }
+
+    /**
+     * Same as {@link #generalizeStep(String, String)}, for segments interned in a dictionary
+     */
+    private static String generalizeStep(TokenDictionary dictionary, int t1, int t2) {
+        if (t1 == t2)
+            return dictionary.token(t1);
+
+        int n1 = dictionary.normal(t1);
+        int n2 = dictionary.normal(t2);
+        if (n1 == n2)
+            return dictionary.token(n1);
+
+        return generalizeNormalized(dictionary.token(n1), dictionary.token(n2));
+    }
+
     /**
      * Represents one URL segment
      */
-    private static class URLSegment {
+    public static class URLSegment {
 
         /**
          * Text content of the segment
@@ -490,6 +691,11 @@ public class URLRegex {
          */
         private boolean optional = false;
 
+        /**
+         * Number of urls generalized into this segment, only weighted and kept up to date by {@link URLMultiset}
+         */
+        int support = 1;
+
         public URLSegment(String content, String separator) {
             this(content, separator, false);
         }
@@ -0,0 +1,459 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Stateful counterpart of {@link URLRegex#buildPattern(List)}. Each url is folded into the running generalized
+ * segment list as soon as it is added and then dropped, so memory is bounded by the size of the model and not by
+ * the number of urls seen.
+ *
+ * Unlike {@link URLRegex#buildPattern(List)}, repeated urls are folded again. Instances are not thread safe.
+ */
+public class URLRegexBuilder {
+
+    private final URLTokenizer tokenizer = new URLTokenizer();
+    private final Collector collector = new Collector();
+    private final TokenDictionary dictionary = new TokenDictionary();
+
+    /**
+     * Urls already folded, only kept when the builder has to skip repeated urls
+     */
+    private final Set<String> distinct;
+
+    /**
+     * Shapes of the urls folded so far, with the content of the segments of their first folded url, or null for the
+     * segments whose numbers have been generalized since. Only kept when the builder deduplicates shapes.
+     */
+    private Map<String, String[]> shapes = null;
+    private final StringBuilder shapeKey = new StringBuilder();
+    private char[] normalized = new char[32];
+
+    private List<URLSegment> generalized = new ArrayList<>();
+    private QueryModel queries = new QueryModel();
+
+    private int alignmentBand = 0;
+    private boolean possessive = false;
+    private URLRegexMetrics metrics = null;
+
+    private int convergenceWindow = 0;
+    private int unchangedCount = 0;
+    private int convergedAfter = -1;
+    private boolean changed = false;
+
+    private int urlsCount = 0;
+    private int foldedCount = 0;
+    private boolean allowsSSL = false;
+    private boolean allowsHttp = false;
+
+    public URLRegexBuilder() {
+        this(false);
+    }
+
+    /**
+     * Resume folding urls into a model learned before, for instance read with {@link URLModel#readFrom}.
+     * @param model
+     */
+    public URLRegexBuilder(URLModel model) {
+        this(false);
+        generalized = model.getSegments();
+        queries = new QueryModel(model.getQueryModel());
+        allowsHttp = model.allowsHttp();
+        allowsSSL = model.allowsSSL();
+        urlsCount = model.size();
+    }
+
+    /**
+     * @param distinct if repeated urls (regardless of protocol) should be folded only once
+     */
+    URLRegexBuilder(boolean distinct) {
+        this.distinct = distinct ? new HashSet<String>() : null;
+    }
+
+    /**
+     * Align segments of new urls against the model within a band of diagonals, instead of the whole table. Aligning
+     * takes linear time and memory in the number of segments, which pays off for long generated urls, but a segment
+     * can then only be matched with one at most band positions away from its expected position.
+     * @param band maximum shift between aligned segments, or 0 to align without limit (the default)
+     * @return this builder
+     */
+    public URLRegexBuilder withAlignmentBand(int band) {
+        if (band < 0)
+            throw new IllegalArgumentException("Negative alignment band: " + band);
+        this.alignmentBand = band;
+        return this;
+    }
+
+    /**
+     * Fold only the urls of a shape which vary in a segment constant so far. The shape of an url is made of its
+     * segments, with their runs of digits replaced by NUM, and their separators: /topic/123 and /topic/124 share the
+     * same shape. The first url of a shape is folded as is, and the next ones varying in new segments with the numbers
+     * of their varying segments replaced, so that the model generalizes them as folding more of them would. Other urls
+     * of the shape skip the alignment. Query parameters and protocols are still collected from every url.
+     *
+     * Memory then grows with the number of distinct shapes, see {@link #dedupRatio()} for the share of urls skipped.
+     * @return this builder
+     */
+    public URLRegexBuilder withShapeDeduplication() {
+        if (shapes == null)
+            shapes = new HashMap<>();
+        return this;
+    }
+
+    /**
+     * Emit snapshot regexes in possessive form: they match the same urls, but use possessive quantifiers and atomic
+     * groups wherever giving back characters cannot lead to a match, so that matching long non matching urls does not
+     * backtrack through every way of splitting their query parameters. Automata are still compiled from the plain form.
+     * @return this builder
+     */
+    public URLRegexBuilder withPossessiveQuantifiers() {
+        this.possessive = true;
+        return this;
+    }
+
+    /**
+     * Report timings and counters of this builder to metrics.
+     * @param metrics receives timings and counters, or null to disable instrumentation (the default)
+     * @return this builder
+     */
+    public URLRegexBuilder withMetrics(URLRegexMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Consider the model converged once window urls in a row have been added without changing it: segments,
+     * protocols and query parameters all stay the same. {@link #addAll(Iterable)} then stops, and
+     * {@link #convergedAfter()} tells how many urls it took.
+     * @param window number of urls in a row leaving the model unchanged, or 0 to never converge (the default)
+     * @return this builder
+     */
+    public URLRegexBuilder withConvergenceWindow(int window) {
+        if (window < 0)
+            throw new IllegalArgumentException("Negative convergence window: " + window);
+        this.convergenceWindow = window;
+        return this;
+    }
+
+    /**
+     * Generalize the current model with the given url.
+     * @param url
+     * @return this builder
+     */
+    public URLRegexBuilder add(CharSequence url) {
+
+        boolean queriesOptional = urlsCount != queries.queriesCount();
+        urlsCount++;
+        changed = false;
+
+        boolean fold = distinct == null ||
+            distinct.add(url.subSequence(URLTokenizer.pathStart(url), url.length()).toString());
+
+        // Discover segments of url and fold them into the generalized ones
+        collector.elements = fold ? new ArrayList<URLSegment>() : null;
+        if (metrics == null) {
+            tokenizer.tokenize(url, fold, collector);
+        } else {
+            long start = System.nanoTime();
+            tokenizer.tokenize(url, fold, collector);
+            metrics.time(URLRegexMetrics.Phase.TOKENIZE, System.nanoTime() - start);
+            metrics.count(URLRegexMetrics.Counter.URLS, 1);
+        }
+        if (fold && covers(collector.elements))
+            fold = false;
+        if (fold && shapes != null)
+            fold = reshape(collector.elements);
+        if (fold) {
+            foldedCount++;
+            List<URLSegment> previous = convergenceWindow > 0 ? copy(generalized) : null;
+            generalized = generalized.isEmpty() ? collector.elements :
+                URLRegex.generalize(generalized, collector.elements, dictionary, alignmentBand, metrics);
+            if (previous == null || !previous.equals(generalized))
+                changed = true;
+        }
+        collector.elements = null;
+
+        if (queriesOptional != (urlsCount != queries.queriesCount()))
+            changed = true;
+        if (changed) {
+            unchangedCount = 0;
+            convergedAfter = -1;
+        } else if (++unchangedCount == convergenceWindow) {
+            convergedAfter = urlsCount;
+        }
+
+        return this;
+    }
+
+    /**
+     * Check if folding the segments of an url would leave the model unchanged. This is the case when the model has as
+     * many segments, each equal to the segment of the url, or to its form with numbers replaced, and with a compatible
+     * separator: every pair of segments then scores a full match, so that the alignment matches them one to one.
+     * @param elements segments of the url
+     * @return if the model already covers the url
+     */
+    private boolean covers(List<URLSegment> elements) {
+        if (generalized.size() != elements.size())
+            return false;
+
+        for (int i = 0; i < elements.size(); i++) {
+            URLSegment model = generalized.get(i);
+            URLSegment element = elements.get(i);
+
+            String separator = model.getSeparator();
+            if (!separator.equals(element.getSeparator()) && !separator.endsWith("?"))
+                return false;
+
+            String content = model.getContent();
+            if (content.equals(element.getContent()))
+                continue;
+
+            normalized = EditDistance.ensureCapacity(normalized, EditDistance.normalizedCapacity(element.getContent()));
+            int length = EditDistance.normalize(element.getContent(), normalized);
+            if (length != content.length())
+                return false;
+            for (int j = 0; j < length; j++) {
+                if (normalized[j] != content.charAt(j))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<URLSegment> copy(List<URLSegment> segments) {
+        List<URLSegment> copy = new ArrayList<>(segments.size());
+        for (URLSegment segment : segments) {
+            copy.add(new URLSegment(segment.getContent(), segment.getSeparator(), segment.isOptional()));
+        }
+        return copy;
+    }
+
+    /**
+     * Check if the segments of an url have to be folded, given the urls of the same shape already folded. Segments
+     * varying from the first url of the shape get their numbers replaced, constant ones are kept as they are.
+     * @param elements segments of the url
+     * @return if the segments have to be folded
+     */
+    private boolean reshape(List<URLSegment> elements) {
+        shapeKey.setLength(0);
+        for (URLSegment element : elements) {
+            normalized = EditDistance.ensureCapacity(normalized, EditDistance.normalizedCapacity(element.getContent()));
+            shapeKey.append(normalized, 0, EditDistance.normalize(element.getContent(), normalized))
+                .append('\0').append(element.getSeparator()).append('\0');
+        }
+
+        String key = shapeKey.toString();
+        String[] contents = shapes.get(key);
+        if (contents == null) {
+            contents = new String[elements.size()];
+            for (int i = 0; i < contents.length; i++) {
+                contents[i] = elements.get(i).getContent();
+            }
+            shapes.put(key, contents);
+            return true;
+        }
+
+        boolean varying = false;
+        for (int i = 0; i < contents.length; i++) {
+            if (contents[i] != null && !contents[i].equals(elements.get(i).getContent())) {
+                contents[i] = null;
+                varying = true;
+            }
+        }
+        if (!varying)
+            return false;
+
+        for (int i = 0; i < contents.length; i++) {
+            if (contents[i] != null)
+                continue;
+            URLSegment element = elements.get(i);
+            normalized = EditDistance.ensureCapacity(normalized, EditDistance.normalizedCapacity(element.getContent()));
+            element.setContent(new String(normalized, 0, EditDistance.normalize(element.getContent(), normalized)));
+        }
+        return true;
+    }
+
+    /**
+     * Generalize the current model with all given urls, in iteration order, until the model converges if a
+     * convergence window is set.
+     * @param urls
+     * @return this builder
+     */
+    public URLRegexBuilder addAll(Iterable<? extends CharSequence> urls) {
+        for (CharSequence url : urls) {
+            add(url);
+
+            // Stop on the url the model converged with
+            if (convergedAfter == urlsCount)
+                break;
+        }
+        return this;
+    }
+
+    /**
+     * Generalize the current model with the model of another builder, as if its urls had been added to this one.
+     * The other builder must not be used afterwards, as its segments are reused.
+     * @param other
+     * @return this builder
+     */
+    URLRegexBuilder merge(URLRegexBuilder other) {
+        urlsCount += other.urlsCount;
+        foldedCount += other.foldedCount;
+        allowsHttp |= other.allowsHttp;
+        allowsSSL |= other.allowsSSL;
+        queries.merge(other.queries);
+
+        if (distinct != null && other.distinct != null)
+            distinct.addAll(other.distinct);
+
+        // Segments of shapes folded on both sides are generalized where they differ
+        if (shapes != null && other.shapes != null) {
+            for (Map.Entry<String, String[]> shape : other.shapes.entrySet()) {
+                String[] contents = shapes.get(shape.getKey());
+                if (contents == null) {
+                    shapes.put(shape.getKey(), shape.getValue());
+                    continue;
+                }
+                String[] otherContents = shape.getValue();
+                for (int i = 0; i < contents.length; i++) {
+                    if (!Objects.equals(contents[i], otherContents[i]))
+                        contents[i] = null;
+                }
+            }
+        }
+
+        unchangedCount = 0;
+        convergedAfter = -1;
+
+        if (!other.generalized.isEmpty())
+            generalized = generalized.isEmpty() ? other.generalized :
+                URLRegex.generalize(generalized, other.generalized, dictionary, alignmentBand, metrics);
+
+        return this;
+    }
+
+    /**
+     * @return the most general regex matching all urls added so far
+     */
+    public Pattern snapshot() {
+        return snapshot(possessive);
+    }
+
+    private Pattern snapshot(boolean possessive) {
+        boolean queriesOptional = urlsCount != queries.queriesCount();
+        if (metrics == null)
+            return URLRegex.buildPattern(generalized, queries, queriesOptional, allowsHttp, allowsSSL, possessive);
+
+        long start = System.nanoTime();
+        String regex = URLRegex.buildRegex(generalized, queries, queriesOptional, allowsHttp, allowsSSL, possessive);
+        long emitted = System.nanoTime();
+        metrics.time(URLRegexMetrics.Phase.EMIT, emitted - start);
+        metrics.count(URLRegexMetrics.Counter.REGEX_LENGTH, regex.length());
+
+        Pattern pattern = Pattern.compile(regex);
+        metrics.time(URLRegexMetrics.Phase.COMPILE, System.nanoTime() - emitted);
+        return pattern;
+    }
+
+    /**
+     * @return the generalized model of all urls added so far
+     */
+    public URLModel snapshotModel() {
+        return new URLModel(generalized, queries, allowsHttp, allowsSSL, urlsCount);
+    }
+
+    /**
+     * @return a matcher of all urls added so far, rejecting urls lacking a literal of the regex before running it
+     */
+    public PrefilteredMatcher snapshotMatcher() {
+        return PrefilteredMatcher.of(snapshotModel(), snapshot());
+    }
+
+    /**
+     * @return an automaton matching all urls added so far, in linear time
+     */
+    public URLAutomaton snapshotAutomaton() {
+        Pattern pattern = snapshot(false);
+        if (metrics == null)
+            return URLAutomaton.compile(pattern);
+
+        long start = System.nanoTime();
+        URLAutomaton automaton = URLAutomaton.compile(pattern);
+        metrics.time(URLRegexMetrics.Phase.COMPILE, System.nanoTime() - start);
+        return automaton;
+    }
+
+    /**
+     * @return number of urls added so far
+     */
+    public int size() {
+        return urlsCount;
+    }
+
+    /**
+     * @return if the last urls added, as many as the convergence window, left the model unchanged
+     */
+    public boolean isConverged() {
+        return convergedAfter >= 0;
+    }
+
+    /**
+     * @return number of urls added when the model converged, or -1 if it has not converged
+     */
+    public int convergedAfter() {
+        return convergedAfter;
+    }
+
+    /**
+     * @return number of urls aligned against the model so far, repeated urls, shapes and urls already covered by the
+     * model excluded
+     */
+    public int foldedCount() {
+        return foldedCount;
+    }
+
+    /**
+     * @return share of the urls added so far which did not have to be folded, between 0 and 1
+     */
+    public double dedupRatio() {
+        return urlsCount == 0 ? 0.0 : 1.0 - (double) foldedCount / urlsCount;
+    }
+
+    /**
+     * Collects the parts of the url being added
+     */
+    private class Collector implements URLTokenizer.Handler {
+
+        private List<URLSegment> elements;
+
+        @Override
+        public void protocol(boolean ssl) {
+            if (ssl ? allowsSSL : allowsHttp)
+                return;
+
+            if (ssl)
+                allowsSSL = true;
+            else
+                allowsHttp = true;
+            changed = true;
+        }
+
+        @Override
+        public void segment(String token, String separator) {
+            elements.add(new URLSegment(token, separator));
+        }
+
+        @Override
+        public void query() {
+            queries.query();
+        }
+
+        @Override
+        public void queryParameter(String key, QueryModel.ValueType value) {
+            if (queries.add(key, value))
+                changed = true;
+        }
+    }
+}
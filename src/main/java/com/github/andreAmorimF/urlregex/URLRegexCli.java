@@ -0,0 +1,120 @@
+package com.github.andreAmorimF.urlregex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line entry point, printing the regex learned from newline delimited url files, possibly gzipped.
+ *
+ * <pre>
+ * java -cp urlregex.jar:commons-lang.jar com.github.andreAmorimF.urlregex.URLRegexCli [--band N] [--window N] [--load MODEL] [--save MODEL] [file|-]...
+ * </pre>
+ *
+ * All files are folded into the same regex. Urls are read from the standard input when no file is given, or for "-".
+ * With a convergence window, reading stops once that many urls in a row left the regex unchanged. A model saved by a
+ * previous run can be loaded to resume learning from it, and the learned model saved with its compiled automaton.
+ */
+public final class URLRegexCli {
+
+    private static final String USAGE = "Usage: URLRegexCli [--band N] [--window N] [--load MODEL] [--save MODEL] [file|-]...";
+
+    private URLRegexCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    /**
+     * @param args command line arguments
+     * @param in standard input
+     * @param out receives the regex
+     * @param err receives usage and errors
+     * @return exit status
+     */
+    static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+        URLRegexBuilder builder = null;
+        URLReader reader = null;
+        Path save = null;
+
+        boolean read = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                // A model to load must come before any option or url file
+                if (builder == null && !args[i].equals("--load")) {
+                    builder = new URLRegexBuilder();
+                    reader = new URLReader(builder);
+                }
+
+                switch (args[i]) {
+                    case "-h":
+                    case "--help":
+                        out.println(USAGE);
+                        return 0;
+                    case "--band":
+                        if (++i == args.length)
+                            throw new IllegalArgumentException("Missing value of --band");
+                        builder.withAlignmentBand(Integer.parseInt(args[i]));
+                        break;
+                    case "--load":
+                        if (++i == args.length)
+                            throw new IllegalArgumentException("Missing value of --load");
+                        if (builder != null)
+                            throw new IllegalArgumentException("--load must come first");
+                        try (InputStream model = Files.newInputStream(Paths.get(args[i]))) {
+                            builder = new URLRegexBuilder(URLModel.readFrom(model));
+                        }
+                        reader = new URLReader(builder);
+                        break;
+                    case "--save":
+                        if (++i == args.length)
+                            throw new IllegalArgumentException("Missing value of --save");
+                        save = Paths.get(args[i]);
+                        break;
+                    case "--window":
+                        if (++i == args.length)
+                            throw new IllegalArgumentException("Missing value of --window");
+                        builder.withConvergenceWindow(Integer.parseInt(args[i]));
+                        break;
+                    case "-":
+                        reader.read(in);
+                        read = true;
+                        break;
+                    default:
+                        reader.read(Paths.get(args[i]));
+                        read = true;
+                }
+            }
+
+            if (builder == null) {
+                builder = new URLRegexBuilder();
+                reader = new URLReader(builder);
+            }
+            if (!read)
+                reader.read(in);
+
+            if (save != null) {
+                try (OutputStream model = Files.newOutputStream(save)) {
+                    builder.snapshotModel().writeTo(model, true);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        } catch (IOException e) {
+            err.println("Cannot read or write urls: " + e);
+            return 1;
+        }
+
+        if (builder.isConverged())
+            err.println("Converged after " + builder.convergedAfter() + " urls");
+        out.println(builder.snapshot().pattern());
+        return 0;
+    }
+}
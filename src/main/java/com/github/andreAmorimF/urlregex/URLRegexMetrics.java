@@ -0,0 +1,82 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Receives timings and counters of pattern builds, see {@link URLRegexBuilder#withMetrics(URLRegexMetrics)}.
+ * Builders without metrics do not read the clock, so instrumentation costs nothing unless enabled.
+ *
+ * Implementations shared by builders of different threads, such as parallel builds, must be thread safe.
+ * {@link HistogramMetrics} aggregates everything it receives.
+ */
+public interface URLRegexMetrics {
+
+    /**
+     * Phases of a build
+     */
+    enum Phase {
+
+        /**
+         * Splitting an url into protocol, segments and query parameters
+         */
+        TOKENIZE,
+
+        /**
+         * Filling the alignment table between an url and the model
+         */
+        ALIGN,
+
+        /**
+         * Generalizing the aligned segments into the new model
+         */
+        GENERALIZE_STEP,
+
+        /**
+         * Writing the regex of the model
+         */
+        EMIT,
+
+        /**
+         * Compiling the regex
+         */
+        COMPILE
+    }
+
+    enum Counter {
+
+        /**
+         * Urls added
+         */
+        URLS,
+
+        /**
+         * Cells of alignment tables computed
+         */
+        DP_CELLS,
+
+        /**
+         * Levenshtein distances computed, cached ones excluded
+         */
+        EDIT_DISTANCES,
+
+        /**
+         * Segments of the model widened to a wildcard
+         */
+        WILDCARDS,
+
+        /**
+         * Length of the regexes emitted
+         */
+        REGEX_LENGTH
+    }
+
+    /**
+     * @param phase
+     * @param nanos time spent in one run of the phase
+     */
+    void time(Phase phase, long nanos);
+
+    /**
+     * @param counter
+     * @param delta amount to add to the counter
+     */
+    void count(Counter counter, long delta);
+}
@@ -0,0 +1,192 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Single pass scanner splitting an url into protocol, segments and query parameters. It works on char offsets of the
+ * input and only allocates the text of emitted segments and query keys.
+ *
+ * Instances keep a reusable buffer and are not thread safe.
+ */
+final class URLTokenizer {
+
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+    private static final String SEPARATOR = "/";
+    private static final String NO_SEPARATOR = "";
+
+    /**
+     * Receives the parts of an url, in the order they appear
+     */
+    interface Handler {
+
+        /**
+         * Url starts with http:// or https://
+         * @param ssl if the protocol is https
+         */
+        void protocol(boolean ssl);
+
+        /**
+         * @param token segment content, the first one (the host) with its labels reversed
+         * @param separator "/" or "" when the segment is not followed by a slash
+         */
+        void segment(String token, String separator);
+
+        /**
+         * Url has a query part, even an empty one
+         */
+        void query();
+
+        /**
+         * @param key query parameter name
+         * @param value type of the parameter value, or null if it has no value
+         */
+        void queryParameter(String key, QueryModel.ValueType value);
+    }
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * @param url
+     * @return offset of the url after its http:// or https:// prefix
+     */
+    static int pathStart(CharSequence url) {
+        if (startsWith(url, HTTP))
+            return HTTP.length();
+        if (startsWith(url, HTTPS))
+            return HTTPS.length();
+        return 0;
+    }
+
+    /**
+     * Scan url and report its parts to the handler.
+     * @param url
+     * @param withSegments if segments should be reported
+     * @param handler
+     */
+    void tokenize(CharSequence url, boolean withSegments, Handler handler) {
+
+        final int length = url.length();
+        int start = pathStart(url);
+        if (start > 0)
+            handler.protocol(start == HTTPS.length());
+
+        // Breaks URL into two parts bettwen the '?' char
+        int split = start;
+        while (split < length && url.charAt(split) != '?')
+            split++;
+
+        // Segments are runs of chars other than '/', each with the slash following it
+        if (withSegments) {
+            boolean first = true;
+            int pos = start;
+            while (pos < split) {
+                if (url.charAt(pos) == '/') {
+                    pos++;
+                    continue;
+                }
+
+                int tokenStart = pos;
+                while (pos < split && url.charAt(pos) != '/')
+                    pos++;
+
+                String token = first ? reverseDomain(url, tokenStart, pos) : text(url, tokenStart, pos);
+                String separator = NO_SEPARATOR;
+                if (pos < split) {
+                    separator = SEPARATOR;
+                    pos++;
+                }
+                first = false;
+                handler.segment(token, separator);
+            }
+        }
+
+        if (split == length)
+            return;
+
+        // Query parameters are words, optionally preceded by '&' and followed by a non empty value
+        handler.query();
+        int pos = split + 1;
+        while (pos < length) {
+            int keyStart;
+            if (url.charAt(pos) == '&' && pos + 1 < length && isWordChar(url.charAt(pos + 1)))
+                keyStart = pos + 1;
+            else if (isWordChar(url.charAt(pos)))
+                keyStart = pos;
+            else {
+                pos++;
+                continue;
+            }
+
+            int keyEnd = keyStart;
+            while (keyEnd < length && isWordChar(url.charAt(keyEnd)))
+                keyEnd++;
+
+            boolean valued = keyEnd + 1 < length && url.charAt(keyEnd) == '=' && url.charAt(keyEnd + 1) != '&';
+            QueryModel.ValueType value = null;
+            pos = keyEnd;
+            if (valued) {
+                pos++;
+                value = QueryModel.ValueType.NUMERIC;
+                while (pos < length && url.charAt(pos) != '&')
+                    value = value.widen(url.charAt(pos++));
+            }
+
+            handler.queryParameter(text(url, keyStart, keyEnd), value);
+        }
+    }
+
+    /**
+     * Reverse the dot separated labels of url between start and end, ignoring trailing dots.
+     */
+    String reverseDomain(CharSequence url, int start, int end) {
+        while (end > start && url.charAt(end - 1) == '.')
+            end--;
+
+        int dot = end - 1;
+        while (dot >= start && url.charAt(dot) != '.')
+            dot--;
+        if (dot < start)
+            return text(url, start, end);
+
+        buffer.setLength(0);
+        int labelEnd = end;
+        while (true) {
+            buffer.append(url, dot + 1, labelEnd);
+            if (dot < start)
+                break;
+
+            buffer.append('.');
+            labelEnd = dot;
+            dot--;
+            while (dot >= start && url.charAt(dot) != '.')
+                dot--;
+        }
+        return buffer.toString();
+    }
+
+    private String text(CharSequence url, int start, int end) {
+        if (url instanceof String)
+            return ((String) url).substring(start, end);
+
+        buffer.setLength(0);
+        buffer.append(url, start, end);
+        return buffer.toString();
+    }
+
+    private static boolean startsWith(CharSequence url, String prefix) {
+        if (url.length() < prefix.length())
+            return false;
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if (url.charAt(i) != prefix.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same chars as \w in regular expressions
+     */
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+}
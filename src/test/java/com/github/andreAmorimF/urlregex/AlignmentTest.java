@@ -0,0 +1,84 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AlignmentTest {
+
+    @Test
+    public void testWideBandSameAsFull() {
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            URLRegexBuilder builder = new URLRegexBuilder(true).withAlignmentBand(100);
+            assertEquals(URLRegex.buildPattern(urls).toString(), builder.addAll(urls).snapshot().toString());
+        }
+
+        Random random = new Random(13);
+        for (int n = 0; n < 200; n++) {
+            List<String> urls = new ArrayList<>();
+            for (int i = random.nextInt(6) + 2; i > 0; i--) {
+                urls.add(trackingUrl(random, random.nextInt(12)));
+            }
+            URLRegexBuilder full = new URLRegexBuilder().addAll(urls);
+            URLRegexBuilder banded = new URLRegexBuilder().withAlignmentBand(12).addAll(urls);
+            assertEquals(full.snapshot().toString(), banded.snapshot().toString());
+        }
+    }
+
+    @Test
+    public void testNarrowBandMatchesAllUrls() {
+        Random random = new Random(17);
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            urls.add(trackingUrl(random, 40 + random.nextInt(20)));
+        }
+
+        for (int band = 1; band <= 4; band++) {
+            Matcher matcher = new URLRegexBuilder().withAlignmentBand(band).addAll(urls).snapshot().matcher("");
+            for (String url : urls) {
+                matcher.reset(url);
+                assertTrue(matcher.matches());
+            }
+        }
+    }
+
+    @Test
+    public void testDirections() {
+        TokenDictionary dictionary = new TokenDictionary();
+        int[] tokens1 = {dictionary.intern("com.domain"), dictionary.intern("forums"), dictionary.intern("page")};
+        int[] tokens2 = {dictionary.intern("com.domain"), dictionary.intern("page")};
+
+        Alignment alignment = Alignment.get();
+        for (int band : new int[]{0, 1, 2}) {
+            alignment.align(tokens1, tokens2, dictionary, band);
+            assertEquals(Alignment.MATCH, alignment.direction(2, 1));
+            assertEquals(Alignment.SKIP_P2, alignment.direction(1, 0));
+            assertEquals(Alignment.MATCH, alignment.direction(0, 0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBand() {
+        new URLRegexBuilder().withAlignmentBand(-1);
+    }
+
+    private static String trackingUrl(Random random, int segments) {
+        String[] words = {"track", "click", "utm", "campaign", "ad", "v2", "r", "go"};
+        StringBuilder url = new StringBuilder("http://t.domain.com");
+        for (int i = 0; i < segments; i++) {
+            url.append('/').append(words[random.nextInt(words.length)]);
+            if (random.nextBoolean())
+                url.append(random.nextInt(1000));
+        }
+        return url.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentURLLearnerTest {
+
+    @Test(timeout = 60000)
+    public void testManyThreads() throws InterruptedException {
+        final ConcurrentURLLearner learner = new ConcurrentURLLearner(URLRegexBuilder::new, 4);
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // Readers only ever see complete snapshots, of a growing number of urls
+        Thread reader = new Thread(() -> {
+            try {
+                int size = 0;
+                while (!done.get()) {
+                    ConcurrentURLLearner.Snapshot snapshot = learner.refresh();
+                    assertTrue(snapshot.size() >= size);
+                    if (snapshot.size() > 0)
+                        assertEquals(snapshot.getModel().toPattern().pattern(), snapshot.getPattern().pattern());
+                    size = snapshot.size();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+
+        List<Thread> fetchers = new ArrayList<>();
+        List<String> urls = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            final List<String> fetched = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                fetched.add("http://www.domain.com/forums/f" + t + "/viewtopic_" + (t * 1000 + i) + ".htm?sid=" + i);
+            }
+            urls.addAll(fetched);
+            fetchers.add(new Thread(() -> fetched.forEach(learner::offer)));
+        }
+        for (Thread fetcher : fetchers) {
+            fetcher.start();
+        }
+        for (Thread fetcher : fetchers) {
+            fetcher.join();
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+
+        ConcurrentURLLearner.Snapshot snapshot = learner.refresh();
+        assertEquals(urls.size(), learner.offered());
+        assertEquals(urls.size(), snapshot.size());
+        for (String url : urls) {
+            assertTrue(url, snapshot.matches(url));
+        }
+        assertFalse(snapshot.matches("http://www.domain.com/forums/f1/viewtopic_x.htm?sid=1"));
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() {
+        ConcurrentURLLearner learner = new ConcurrentURLLearner();
+        assertEquals(0, learner.snapshot().size());
+        assertFalse(learner.snapshot().matches("http://www.domain.com/"));
+
+        learner.offer("http://www.domain.com/forums/viewforum_31.htm");
+        assertEquals(0, learner.snapshot().size());
+
+        ConcurrentURLLearner.Snapshot snapshot = learner.refresh();
+        assertSame(snapshot, learner.snapshot());
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_31\\.htm$", snapshot.toString());
+
+        learner.offer("http://www.domain.com/forums/viewforum_32.htm");
+        assertFalse(snapshot.matches("http://www.domain.com/forums/viewforum_32.htm"));
+        assertTrue(learner.refresh().matches("http://www.domain.com/forums/viewforum_32.htm"));
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_31\\.htm$", snapshot.toString());
+    }
+
+    @Test
+    public void testConfiguredBuilders() {
+        ConcurrentURLLearner learner = new ConcurrentURLLearner(
+            () -> new URLRegexBuilder().withPossessiveQuantifiers(), 2);
+        learner.offer("http://www.domain.com/forums/viewforum_31.htm");
+        learner.offer("http://www.domain.com/forums/viewforum_32.htm");
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d++\\.htm$", learner.refresh().toString());
+    }
+}
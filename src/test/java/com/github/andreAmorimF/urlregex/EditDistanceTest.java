@@ -0,0 +1,80 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EditDistanceTest {
+
+    @Test
+    public void testSameAsLevenshtein() {
+        Random random = new Random(3);
+        EditDistance distance = EditDistance.get();
+        for (int i = 0; i < 2000; i++) {
+            String s1 = randomSegment(random);
+            String s2 = randomSegment(random);
+            String n1 = s1.replaceAll("\\d+", "NUM");
+            String n2 = s2.replaceAll("\\d+", "NUM");
+
+            assertEquals(n1.equals(n2), distance.load(s1, s2));
+            assertEquals(Math.max(n1.length(), n2.length()), distance.maxLength());
+
+            int expected = StringUtils.getLevenshteinDistance(n1, n2);
+            assertEquals(expected, distance.distance(0));
+
+            int atLeast = random.nextInt(12);
+            int bounded = distance.distance(atLeast);
+            if (expected < atLeast)
+                assertTrue(bounded == -1 || bounded == expected);
+            else
+                assertEquals(expected, bounded);
+        }
+    }
+
+    @Test
+    public void testNumbers() {
+        EditDistance distance = EditDistance.get();
+        assertTrue(distance.load("viewforum_31.htm", "viewforum_2015.htm"));
+        assertTrue(distance.load("NUM", "42"));
+        assertFalse(distance.load("page-2", "page-"));
+        assertEquals(3, distance.distance(0));
+        assertEquals(-1, distance.distance(4));
+    }
+
+    @Test
+    public void testMatchScore() {
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            String s1 = randomSegment(random);
+            String s2 = randomSegment(random);
+            String n1 = s1.replaceAll("\\d+", "NUM");
+            String n2 = s2.replaceAll("\\d+", "NUM");
+
+            double expected = s1.equals(s2) || n1.equals(n2) ? 1.0 :
+                (StringUtils.getLevenshteinDistance(n1, n2) * 0.5) / Math.max(n1.length(), n2.length());
+            assertEquals(expected, URLRegex.matchScore(s1, s2), 0.0);
+
+            double diagonal = random.nextInt(4) * 0.25;
+            double skip = diagonal + random.nextDouble() * 0.6;
+            double bounded = URLRegex.matchScore(s1, s2, diagonal, skip);
+            if (diagonal + expected >= skip)
+                assertEquals(expected, bounded, 0.0);
+            else
+                assertTrue(bounded == expected || bounded == Double.NEGATIVE_INFINITY);
+        }
+    }
+
+    static String randomSegment(Random random) {
+        String alphabet = "abcab-_.0123456789";
+        StringBuilder segment = new StringBuilder();
+        for (int i = random.nextInt(16); i > 0; i--) {
+            segment.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return segment.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegexMetrics.Counter;
+import com.github.andreAmorimF.urlregex.URLRegexMetrics.Phase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramMetricsTest {
+
+    @Test
+    public void testBuildMetrics() {
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_4);
+        HistogramMetrics metrics = new HistogramMetrics();
+        Pattern pattern = URLRegex.buildPattern(urls, metrics);
+
+        assertEquals(URLRegex.buildPattern(urls).toString(), pattern.toString());
+        assertEquals(3, metrics.get(Counter.URLS));
+        assertEquals(3, metrics.count(Phase.TOKENIZE));
+        assertEquals(2, metrics.count(Phase.ALIGN));
+        assertEquals(2, metrics.count(Phase.GENERALIZE_STEP));
+        assertEquals(1, metrics.count(Phase.EMIT));
+        assertEquals(1, metrics.count(Phase.COMPILE));
+
+        assertTrue(metrics.get(Counter.DP_CELLS) > 0);
+        assertTrue(metrics.get(Counter.EDIT_DISTANCES) > 0);
+        assertTrue(metrics.get(Counter.WILDCARDS) > 0);
+        assertEquals(pattern.pattern().length(), metrics.get(Counter.REGEX_LENGTH));
+        assertTrue(metrics.totalNanos(Phase.ALIGN) > 0);
+        assertTrue(metrics.toString().contains("GENERALIZE_STEP"));
+    }
+
+    @Test
+    public void testDpCells() {
+        HistogramMetrics metrics = new HistogramMetrics();
+        URLRegexBuilder builder = new URLRegexBuilder().withMetrics(metrics);
+        builder.add("http://www.domain.com/a/b/c");
+        builder.add("http://www.domain.com/d/e");
+        assertEquals(3 * 2, metrics.get(Counter.DP_CELLS));
+
+        metrics.reset();
+        assertEquals(0, metrics.get(Counter.DP_CELLS));
+        assertEquals(0, metrics.count(Phase.TOKENIZE));
+    }
+
+    @Test
+    public void testQuantiles() {
+        HistogramMetrics metrics = new HistogramMetrics();
+        assertEquals(0, metrics.quantileNanos(Phase.EMIT, 0.5));
+
+        for (int i = 1; i <= 100; i++) {
+            metrics.time(Phase.EMIT, i * 1000);
+        }
+        assertEquals(100, metrics.count(Phase.EMIT));
+        assertEquals(5050 * 1000, metrics.totalNanos(Phase.EMIT));
+        assertEquals(100000, metrics.maxNanos(Phase.EMIT));
+
+        // The median, 50000ns, falls in [32768, 65536)
+        assertEquals(65535, metrics.quantileNanos(Phase.EMIT, 0.5));
+        assertEquals(100000, metrics.quantileNanos(Phase.EMIT, 0.99));
+        assertEquals(1023, metrics.quantileNanos(Phase.EMIT, 0.0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuantile() {
+        new HistogramMetrics().quantileNanos(Phase.EMIT, 1.5);
+    }
+}
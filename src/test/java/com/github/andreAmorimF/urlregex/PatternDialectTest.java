@@ -0,0 +1,83 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PatternDialectTest {
+
+    private static URLModel model(String... urls) {
+        return new URLRegexBuilder().addAll(Arrays.asList(urls)).snapshotModel();
+    }
+
+    @Test
+    public void testJava() {
+        for (String[] inputs : URLRegexCases.ALL) {
+            URLModel model = model(inputs);
+            assertEquals(model.toPattern().pattern(), model.emit(PatternDialect.JAVA));
+        }
+    }
+
+    @Test
+    public void testURLFilter() {
+        URLModel model = model("http://www.domain.com/forums/viewforum_31.htm",
+            "https://www.domain.com/forums/viewforum_32.htm?page=2");
+        assertEquals("+^https?://www\\.domain\\.com/forums/viewforum_\\d+\\.htm\\??([&;]?page=[^&;]+)*$",
+            model.emit(PatternDialect.URL_FILTER));
+
+        assertEquals("+^www\\.domain\\.com/forums/viewforum_\\d+\\.htm$",
+            model("www.domain.com/forums/viewforum_31.htm", "www.domain.com/forums/viewforum_32.htm")
+                .emit(PatternDialect.URL_FILTER));
+    }
+
+    @Test
+    public void testGlob() {
+        assertEquals("http://www.domain.com/forums/*viewforum_*.htm*", model(
+            "http://www.domain.com/forums/viewforum_31.htm", "http://www.domain.com/forums/f1/viewforum_32.htm?page=2")
+            .emit(PatternDialect.GLOB));
+        assertEquals("http*://*.domain.com/search\\[1\\]/*s", model(
+            "http://fr.domain.com/search[1]/shoes", "https://en.domain.com/search[1]/hats")
+            .emit(PatternDialect.GLOB));
+
+        // Globs match every url of their model
+        for (String[] inputs : URLRegexCases.ALL) {
+            Pattern glob = globToRegex(model(inputs).emit(PatternDialect.GLOB));
+            for (String input : inputs) {
+                assertTrue(glob.pattern() + " with " + input, glob.matcher(input).matches());
+            }
+        }
+    }
+
+    @Test
+    public void testEscaping() {
+        List<String> urls = Arrays.asList("http://www.domain.com/price$/a\\b.(1)/{x}|y-z^/item_1",
+            "http://www.domain.com/price$/a\\b.(1)/{x}|y-z^/item_2");
+        Pattern pattern = URLRegex.buildPattern(urls);
+        assertEquals("^http://www\\.domain\\.com/price\\$/a\\\\b\\.\\(1\\)/\\{x\\}\\|y\\-z\\^/item_\\d+$",
+            pattern.pattern());
+        for (String url : urls) {
+            assertTrue(pattern.matcher(url).matches());
+        }
+    }
+
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '\\')
+                regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+            else if (c == '*')
+                regex.append(".*");
+            else if (c == '?')
+                regex.append('.');
+            else
+                regex.append(Pattern.quote(String.valueOf(c)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.andreAmorimF.urlregex;
+
+import com.github.andreAmorimF.urlregex.URLRegex.URLSegment;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PatternMinimizerTest {
+
+    @Test
+    public void testSameLanguage() {
+        Random random = new Random(17);
+        List<String[]> cases = new ArrayList<>(Arrays.asList(URLRegexCases.ALL));
+        // Host only urls, the host starting with a wildcard
+        cases.add(new String[]{"http://forum.domain.com", "https://forum.domain.com/", "http://www.domain.com/"});
+        for (String[] inputs : cases) {
+            URLModel model = new URLRegexBuilder().addAll(Arrays.asList(inputs)).snapshotModel();
+            Pattern original = Pattern.compile(PatternEmitter.emit(model.getSegments(), model.getQueryModel(),
+                model.isQueryOptional(), model.allowsHttp(), model.allowsSSL(), false, PatternDialect.JAVA));
+            Pattern minimized = model.toPattern();
+
+            List<String> probes = new ArrayList<>(URLAutomatonTest.probes(Arrays.asList(inputs), random));
+            for (String input : inputs) {
+                probes.add(input + "/");
+                probes.add(input + "//");
+            }
+            for (String probe : probes) {
+                assertEquals(minimized + " with " + probe, original.matcher(probe).matches(),
+                    minimized.matcher(probe).matches());
+            }
+        }
+    }
+
+    @Test
+    public void testTrailingSlash() {
+        List<URLSegment> segments = Arrays.asList(new URLSegment("com.domain.www", "/", false),
+            new URLSegment("forum", "/", false), new URLSegment("t+", "/?", false));
+        List<URLSegment> minimized = PatternMinimizer.minimize(segments);
+        assertEquals("", minimized.get(2).getSeparator());
+        assertEquals("/?", segments.get(2).getSeparator());
+        assertSame(segments.get(0), minimized.get(0));
+
+        // The slash is required, or outside of the optional group
+        segments = Arrays.asList(new URLSegment("com.domain.www", "/", false), new URLSegment("t+", "/", false));
+        assertSame(segments, PatternMinimizer.minimize(segments));
+        segments = Arrays.asList(new URLSegment("com.domain.www", "/", false), new URLSegment("t+", "/?", true));
+        assertSame(segments, PatternMinimizer.minimize(segments));
+
+        // The wildcard of a host is emitted first
+        segments = Arrays.asList(new URLSegment("com.domain.+", "/?", false));
+        assertSame(segments, PatternMinimizer.minimize(segments));
+    }
+
+    @Test
+    public void testOptionalWildcard() {
+        List<URLSegment> segments = Arrays.asList(new URLSegment("com.domain.www", "/", false),
+            new URLSegment("*", "/?", true), new URLSegment("list", "", false));
+        List<URLSegment> minimized = PatternMinimizer.minimize(segments);
+        assertFalse(minimized.get(1).isOptional());
+        assertSameLanguage(segments, minimized, "http://www.domain.com/list", "http://www.domain.com/a/list",
+            "http://www.domain.com/alist", "http://www.domain.com//list", "http://www.domain.com/a/b/list");
+
+        // Sharing its group with another segment
+        segments = Arrays.asList(new URLSegment("com.domain.www", "/", false), new URLSegment("*", "/?", true),
+            new URLSegment("b", "/", true), new URLSegment("list", "", false));
+        assertSame(segments, PatternMinimizer.minimize(segments));
+    }
+
+    @Test
+    public void testMergeWildcards() {
+        assertEquals("a+b", PatternMinimizer.mergeWildcards("a*+b"));
+        assertEquals("a+b", PatternMinimizer.mergeWildcards("a+*b"));
+        assertEquals("*", PatternMinimizer.mergeWildcards("***"));
+        assertEquals("++", PatternMinimizer.mergeWildcards("+*+"));
+        assertEquals("NUM*", PatternMinimizer.mergeWildcards("NUM*"));
+
+        List<URLSegment> segments = Arrays.asList(new URLSegment("com.domain.www", "/", false),
+            new URLSegment("a*+b", "/", false), new URLSegment("+*+", "", false));
+        assertSameLanguage(segments, PatternMinimizer.minimize(segments), "http://www.domain.com/ab/xy",
+            "http://www.domain.com/axb/xy", "http://www.domain.com/axyb/x", "http://www.domain.com/axb/x/y");
+    }
+
+    @Test
+    public void testQueryKeys() {
+        QueryModel queries = new QueryModel();
+        queries.query();
+        queries.add("id", QueryModel.ValueType.NUMERIC);
+        queries.add("p", QueryModel.ValueType.NUMERIC);
+        queries.add("print", null);
+        assertEquals("\\??([&;]?(?:id|p)=[^&;]+|[^&;=]+)*", queries.toRegex(true));
+
+        Pattern factored = Pattern.compile("^" + queries.toRegex(true) + "$");
+        Pattern alternatives = Pattern.compile("^\\??([&;]?id=[^&;]+|[&;]?p=[^&;]+|[^&;=]+)*$");
+        assertEquals(alternatives.matcher("").groupCount(), factored.matcher("").groupCount());
+        for (String query : new String[]{"", "?", "?id=1", "?p=2&id=3", "?print", "?printid=1", "?id=", "?q=1",
+            "?id=1;p=2", "?id=1&&p=2", "?idp=1"}) {
+            assertEquals(query, alternatives.matcher(query).matches(), factored.matcher(query).matches());
+        }
+    }
+
+    private static void assertSameLanguage(List<URLSegment> original, List<URLSegment> minimized, String... urls) {
+        QueryModel queries = new QueryModel();
+        Pattern expected = Pattern.compile(
+            PatternEmitter.emit(original, queries, true, true, false, false, PatternDialect.JAVA));
+        Pattern actual = Pattern.compile(
+            PatternEmitter.emit(minimized, queries, true, true, false, false, PatternDialect.JAVA));
+        assertTrue(expected.pattern().length() > actual.pattern().length());
+        for (String url : urls) {
+            assertEquals(actual + " with " + url, expected.matcher(url).matches(), actual.matcher(url).matches());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PatternSetTest {
+
+    @Test
+    public void testManySites() {
+        PatternSet<String> set = new PatternSet<>();
+        List<String> keys = new ArrayList<>();
+        List<URLModel> models = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            URLModel model = new URLRegexBuilder().addAll(Arrays.asList(
+                "http://www.site" + i + ".com/forums/viewforum_31.htm",
+                "http://www.site" + i + ".com/forums/viewforum_" + (i + 32) + ".htm")).snapshotModel();
+            keys.add("site" + i);
+            models.add(model);
+            set.add("site" + i, model);
+        }
+        assertEquals(1000, set.size());
+
+        List<String> probes = Arrays.asList("http://www.site7.com/forums/viewforum_12.htm",
+            "https://www.site999.com/forums/viewforum_1.htm", "http://www.site7.com/forums/viewtopic_12.htm",
+            "http://www.site1000.com/forums/viewforum_12.htm", "http://site7.com/forums/viewforum_12.htm",
+            "http://www.site7.com./forums/viewforum_12.htm", "http://www.site7.com", "");
+        for (String probe : probes) {
+            assertTrue(probe, set.candidates(probe).size() <= 1);
+            assertEquals(probe, linearMatch(keys, models, probe), set.match(probe));
+        }
+        assertEquals(Arrays.asList("site7"), set.candidates("http://www.site7.com/anything"));
+        assertEquals("site999", set.match("http://www.site999.com/forums/viewforum_1.htm"));
+    }
+
+    @Test
+    public void testGeneralizedHosts() {
+        List<String> keys = Arrays.asList("exact", "subdomains", "numbered", "prefix", "tld", "bare");
+        List<URLModel> models = Arrays.asList(
+            model("http://www.domain.com/page_1.htm", "http://www.domain.com/page_2.htm"),
+            model("http://fr.domain.com/page_1.htm", "http://en.domain.com/page_2.htm"),
+            model("http://s1.domain.com/page_1.htm", "http://s2.domain.com/page_2.htm"),
+            model("http://domainfr.com/page_1.htm", "http://domainen.com/page_2.htm"),
+            model("http://www.domain.com/page_1.htm", "http://www.other.org/page_2.htm"),
+            model("http://www.domain.com", "http://www.other.org"));
+
+        PatternSet<String> set = new PatternSet<>();
+        for (int i = 0; i < keys.size(); i++) {
+            set.add(keys.get(i), models.get(i));
+        }
+
+        // Most specific host first, then patterns of enclosing domains, then patterns matching any host
+        assertEquals(Arrays.asList("exact", "subdomains", "numbered", "prefix", "tld", "bare"),
+            set.candidates("http://www.domain.com/page_1.htm"));
+        assertEquals(Arrays.asList("subdomains", "numbered", "prefix", "tld", "bare"),
+            set.candidates("http://s3.domain.com/page_1.htm"));
+        assertEquals(Arrays.asList("tld", "bare"), set.candidates("http://www.elsewhere.net/page_1.htm"));
+
+        List<String> probes = Arrays.asList("http://www.domain.com/page_1.htm", "http://s3.domain.com/page_1.htm",
+            "http://de.domain.com/page_9.htm", "http://domainde.com/page_9.htm", "http://www.elsewhere.net/page_1.htm",
+            "http://www.elsewhere.net", "http://www.elsewhere.net/a/b", "http://domain.com/page_1.htm");
+        for (String probe : probes) {
+            assertEquals(probe, linearMatch(keys, models, probe), set.match(probe));
+        }
+        assertNull(set.match("http://ftp.domain.com/other_1.htm"));
+    }
+
+    private static URLModel model(String... urls) {
+        return new URLRegexBuilder().addAll(Arrays.asList(urls)).snapshotModel();
+    }
+
+    /**
+     * @return key of the first model matching the url, most specific host first as in the set
+     */
+    private static String linearMatch(List<String> keys, List<URLModel> models, String url) {
+        for (int i = 0; i < keys.size(); i++) {
+            if (models.get(i).toPattern().matcher(url).matches())
+                return keys.get(i);
+        }
+        return null;
+    }
+}
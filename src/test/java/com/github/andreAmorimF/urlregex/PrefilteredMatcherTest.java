@@ -0,0 +1,71 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrefilteredMatcherTest {
+
+    @Test
+    public void testSameAsPattern() {
+        Random random = new Random(11);
+        for (String[] inputs : URLRegexCases.ALL) {
+            URLRegexBuilder builder = new URLRegexBuilder(true);
+            builder.addAll(Arrays.asList(inputs));
+            PrefilteredMatcher matcher = builder.snapshotMatcher();
+            Pattern pattern = builder.snapshot();
+            assertEquals(pattern.pattern(), matcher.pattern().pattern());
+
+            List<String> probes = URLAutomatonTest.probes(Arrays.asList(inputs), random);
+            boolean[] results = matcher.matchAll(probes);
+            for (int i = 0; i < probes.size(); i++) {
+                String probe = probes.get(i);
+                boolean expected = pattern.matcher(probe).matches();
+                assertEquals(pattern + " with " + probe, expected, matcher.matches(probe));
+                assertEquals(pattern + " with " + probe, expected, results[i]);
+                assertEquals(pattern + " with " + probe, expected, matcher.matches(new StringBuilder(probe)));
+                if (expected)
+                    assertTrue(matcher.accepts(probe));
+            }
+        }
+    }
+
+    @Test
+    public void testRequiredLiterals() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/forums/viewforum_31.htm");
+        builder.add("https://www.domain.com/forums/viewforum_32.htm");
+
+        PrefilteredMatcher matcher = builder.snapshotMatcher();
+        assertEquals(Arrays.asList("http", "://www.domain.com/forums/viewforum_", ".htm"), matcher.requiredLiterals());
+
+        assertFalse(matcher.accepts("ftp://www.domain.com/forums/viewforum_31.htm"));
+        assertFalse(matcher.accepts("http://www.other.com/forums/viewforum_31.htm"));
+        assertFalse(matcher.accepts("http://www.domain.com/forums/viewforum_31.html"));
+        assertTrue(matcher.accepts("https://www.domain.com/forums/viewforum_x.htm"));
+        assertFalse(matcher.matches("https://www.domain.com/forums/viewforum_x.htm"));
+        assertTrue(matcher.matches("https://www.domain.com/forums/viewforum_7.htm"));
+    }
+
+    @Test
+    public void testOptionalSegments() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/a/b/page.htm?id=1");
+        builder.add("http://www.domain.com/a/page.htm");
+
+        PrefilteredMatcher matcher = builder.snapshotModel().toMatcher();
+        for (String literal : matcher.requiredLiterals()) {
+            assertFalse(literal, literal.contains("b/"));
+        }
+        assertTrue(matcher.matches("http://www.domain.com/a/b/page.htm?id=2"));
+        assertTrue(matcher.matches("http://www.domain.com/a/page.htm"));
+        assertFalse(matcher.matches("http://www.domain.com/page.htm"));
+    }
+}
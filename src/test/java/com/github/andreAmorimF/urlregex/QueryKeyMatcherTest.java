@@ -0,0 +1,89 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueryKeyMatcherTest {
+
+    @Test
+    public void testSameAsPattern() {
+        List<String[]> cases = new ArrayList<>(Arrays.asList(URLRegexCases.ALL));
+        cases.add(new String[] {"http://www.domain.com/search?q=shoes&page=2", "http://www.domain.com/search?q=hats"});
+        cases.add(new String[] {"http://www.domain.com/search?print", "http://www.domain.com/search?print&q=hats",
+            "http://www.domain.com/search"});
+        // Names without value swallowing the end of the path
+        cases.add(new String[] {"http://www.domain.com?id=460", "http://www.domain.com/foo.bar/?59?a_b=v2;id&a_b=658",
+            "http://forum.domain.com/12/topic99/", "http://www.domain.com/page37?p=898"});
+
+        Random random = new Random(5);
+        for (String[] inputs : cases) {
+            URLModel model = new URLRegexBuilder().addAll(Arrays.asList(inputs)).snapshotModel();
+            QueryKeyMatcher matcher = model.toQueryKeyMatcher();
+            Matcher pattern = model.toPattern().matcher("");
+
+            List<String> probes = new ArrayList<>(Arrays.asList(inputs));
+            probes.addAll(URLAutomatonTest.probes(Arrays.asList(inputs), random));
+            for (String probe : probes) {
+                System.out.println("Testing " + pattern.pattern() + " with : " + probe);
+                assertEquals(pattern.reset(probe).matches(), matcher.matches(probe));
+            }
+        }
+    }
+
+    @Test
+    public void testQueries() {
+        char[] alphabet = {'a', 'b', 'x', '=', '&', '?', '1'};
+        String[][] cases = {
+            {"http://h.com/p?a=1", "http://h.com/p?b=2"},
+            {"http://h.com/p?a=1", "http://h.com/p?b=2", "http://h.com/p"},
+            {"http://h.com/p?x", "http://h.com/p?b"},
+            {"http://h.com/p?x", "http://h.com/p"},
+            {"http://h.com/p?a=1", "http://h.com/p?b=2", "http://h.com/p?x"},
+            {"http://h.com/p?x", "http://h.com/p?a=1"},
+            {"http://h.com/p?a=1", "http://h.com/p?ab=2", "http://h.com/p?x", "http://h.com/p"}};
+
+        for (String[] inputs : cases) {
+            URLModel model = new URLRegexBuilder().addAll(Arrays.asList(inputs)).snapshotModel();
+            QueryKeyMatcher matcher = model.toQueryKeyMatcher();
+            Matcher pattern = model.toPattern().matcher("");
+
+            // Every query of up to 6 chars
+            int[] digits = new int[7];
+            for (int length = 0; length <= 6; length++) {
+                Arrays.fill(digits, 0);
+                do {
+                    StringBuilder url = new StringBuilder("http://h.com/p?");
+                    for (int i = 0; i < length; i++) {
+                        url.append(alphabet[digits[i]]);
+                    }
+                    assertEquals(pattern.pattern() + " with " + url, pattern.reset(url).matches(),
+                        matcher.matches(url));
+                } while (URLRegexTest.increment(digits, length, alphabet.length));
+            }
+            assertEquals(pattern.reset("http://h.com/p").matches(), matcher.matches("http://h.com/p"));
+        }
+    }
+
+    @Test
+    public void testManyKeys() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.add("http://www.domain.com/search?key" + i + "=" + i);
+        }
+        QueryKeyMatcher matcher = builder.snapshotModel().toQueryKeyMatcher();
+        assertTrue(matcher.matches("http://www.domain.com/search?key12=3&key199=x;key0=y"));
+        assertFalse(matcher.matches("http://www.domain.com/search?key12=3&key200=x"));
+        assertFalse(matcher.matches("http://www.domain.com/search?key12=3&"));
+        assertFalse(matcher.matches("http://www.domain.com/other?key12=3"));
+        assertFalse(matcher.matches("http://www.domain.com/search"));
+    }
+}
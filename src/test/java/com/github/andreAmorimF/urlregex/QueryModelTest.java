@@ -0,0 +1,82 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryModelTest {
+
+    @Test
+    public void testCountsAndTypes() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/search?id=12&q=shoes&print");
+        builder.add("http://www.domain.com/search?id=7&q=red-hats");
+        builder.add("http://www.domain.com/search?id=3&id=4");
+        builder.add("http://www.domain.com/search");
+
+        QueryModel queries = builder.snapshotModel().getQueryModel();
+        assertEquals(3, queries.queriesCount());
+        assertEquals(Arrays.asList("id", "q", "print"), Arrays.asList(queries.keys().toArray()));
+
+        assertEquals(3, queries.count("id"));
+        assertTrue(queries.isRequired("id"));
+        assertEquals(QueryModel.ValueType.NUMERIC, queries.valueType("id"));
+
+        assertEquals(2, queries.count("q"));
+        assertFalse(queries.isRequired("q"));
+        assertEquals(QueryModel.ValueType.FREE, queries.valueType("q"));
+
+        assertEquals(1, queries.count("print"));
+        assertFalse(queries.isValued("print"));
+        assertNull(queries.valueType("print"));
+        assertEquals(0, queries.count("other"));
+    }
+
+    @Test
+    public void testAlnumValues() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/search?sid=12");
+        assertEquals(QueryModel.ValueType.NUMERIC, builder.snapshotModel().getQueryModel().valueType("sid"));
+        builder.add("http://www.domain.com/search?sid=a3F9");
+        assertEquals(QueryModel.ValueType.ALNUM, builder.snapshotModel().getQueryModel().valueType("sid"));
+    }
+
+    @Test
+    public void testValuedThenBare() {
+        List<String> urls = Arrays.asList("http://www.domain.com/search?page=2", "http://www.domain.com/search?page");
+        Pattern pattern = URLRegex.buildPattern(urls);
+        assertEquals("^http://www\\.domain\\.com/search\\??([&;]?page=[^&;]+|[^&;=]+)+$", pattern.pattern());
+        for (String url : urls) {
+            assertTrue(pattern.matcher(url).matches());
+        }
+    }
+
+    @Test
+    public void testBareLast() {
+        List<String> urls = Arrays.asList("http://www.domain.com/search?page=2", "http://www.domain.com/search?print");
+        Pattern pattern = URLRegex.buildPattern(urls);
+        assertEquals("^http://www\\.domain\\.com/search\\??([&;]?page=[^&;]+|[^&;=]+)+$", pattern.pattern());
+        assertFalse(pattern.matcher("http://www.domain.com/search").matches());
+    }
+
+    @Test
+    public void testMerge() {
+        List<String> urls = Arrays.asList("http://www.domain.com/search?id=12&q=shoes", "http://www.domain.com/search",
+            "http://www.domain.com/search?id=1a&print", "http://www.domain.com/search?q=hats&print");
+
+        URLRegexBuilder first = new URLRegexBuilder().addAll(urls.subList(0, 2));
+        URLRegexBuilder second = new URLRegexBuilder().addAll(urls.subList(2, 4));
+        QueryModel merged = first.merge(second).snapshotModel().getQueryModel();
+
+        assertEquals(new URLRegexBuilder().addAll(urls).snapshotModel().getQueryModel(), merged);
+        assertEquals(2, merged.count("id"));
+        assertEquals(QueryModel.ValueType.ALNUM, merged.valueType("id"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpecializedMatcherTest {
+
+    /**
+     * Models without optional segment nor query
+     */
+    private static final String[][] SPECIALIZED = {
+        {"http://www.domain.com/forums/viewforum_31.htm", "https://www.domain.com/forums/viewforum_32.htm"},
+        {"http://fr.domain.com/shop/shoes/", "http://en.domain.com/shop/hats/"},
+        {"http://www.domain.com/item/12/view", "http://www.domain.com/item/345/view"},
+        {"http://www.domain.com/a/red-shoes.html", "http://www.domain.com/a/blue-hats.html"},
+        {"http://www.domain.com/forums", "http://www.domain.com/forums/"},
+        {"www.domain.com/news/travels_4732", "www.domain.com/news/tours_4731"},
+        {"https://www.domain.com/p/10-1", "https://www.domain.com/p/10-10", "https://www.domain.com/p/4767-77"},
+        {"http://a.b.domain.com/x", "http://c.domain.com/y"},
+    };
+
+    @Test
+    public void testSameAsPattern() {
+        Random random = new Random(13);
+        List<String[]> cases = new ArrayList<>(Arrays.asList(URLRegexCases.ALL));
+        cases.addAll(Arrays.asList(SPECIALIZED));
+        for (String[] inputs : cases) {
+            URLModel model = new URLRegexBuilder().addAll(Arrays.asList(inputs)).snapshotModel();
+            SpecializedMatcher matcher = model.toSpecializedMatcher();
+            Pattern pattern = model.toPattern();
+            assertEquals(pattern.pattern(), matcher.toString());
+
+            for (String probe : URLAutomatonTest.probes(Arrays.asList(inputs), random)) {
+                boolean expected = pattern.matcher(probe).matches();
+                assertEquals(pattern + " with " + probe, expected, matcher.matches(probe));
+                assertEquals(pattern + " with " + probe, expected, matcher.matches(new StringBuilder(probe)));
+            }
+        }
+    }
+
+    @Test
+    public void testSpecialized() {
+        for (String[] inputs : SPECIALIZED) {
+            URLModel model = new URLRegexBuilder().addAll(Arrays.asList(inputs)).snapshotModel();
+            assertTrue(model.toPattern().pattern(), model.toSpecializedMatcher().isSpecialized());
+        }
+
+        // Queries and optional segments are left to the regex
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/forums/viewforum.php?id=31");
+        builder.add("http://www.domain.com/forums/viewforum.php?id=32");
+        assertFalse(builder.snapshotModel().toSpecializedMatcher().isSpecialized());
+
+        builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/forums");
+        builder.add("http://www.domain.com/forums/viewforum_31.htm");
+        SpecializedMatcher matcher = builder.snapshotModel().toSpecializedMatcher();
+        assertFalse(matcher.isSpecialized());
+        assertTrue(matcher.matches("http://www.domain.com/forums/viewforum_31.htm"));
+    }
+
+    @Test
+    public void testMatches() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://fr.domain.com/forums/viewforum_31.htm");
+        builder.add("https://en.domain.com/forums/viewforum_32.htm");
+        SpecializedMatcher matcher = builder.snapshotModel().toSpecializedMatcher();
+        assertTrue(matcher.isSpecialized());
+
+        assertTrue(matcher.matches("https://de.domain.com/forums/viewforum_7.htm"));
+        assertTrue(matcher.matches("http://a.b.domain.com/forums/viewforum_7.htm"));
+        assertFalse(matcher.matches("http://.domain.com/forums/viewforum_7.htm"));
+        assertFalse(matcher.matches("ftp://fr.domain.com/forums/viewforum_7.htm"));
+        assertFalse(matcher.matches("http://fr.domain.com/forums/viewforum_x.htm"));
+        assertFalse(matcher.matches("http://fr.domain.com/forums/viewforum_7.html"));
+        assertFalse(matcher.matches("http://fr.domain.com/forums/viewforum_7.ht"));
+        assertFalse(matcher.matches("http://fr.domain.com/forums"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TokenDictionaryTest {
+
+    @Test
+    public void testIntern() {
+        TokenDictionary dictionary = new TokenDictionary();
+        int forums = dictionary.intern("forums");
+        int first = dictionary.intern("viewforum_31.htm");
+        int second = dictionary.intern("viewforum_2015.htm");
+
+        assertEquals(forums, dictionary.intern(new String("forums")));
+        assertSame(dictionary.token(forums), dictionary.token(dictionary.intern(new String("forums"))));
+        assertEquals(forums, dictionary.normal(forums));
+
+        assertFalse(first == second);
+        assertEquals(dictionary.normal(first), dictionary.normal(second));
+        assertEquals("viewforum_NUM.htm", dictionary.token(dictionary.normal(first)));
+        assertEquals(dictionary.normal(first), dictionary.intern("viewforum_NUM.htm"));
+        assertEquals(4, dictionary.size());
+    }
+
+    @Test
+    public void testDistance() {
+        Random random = new Random(7);
+        TokenDictionary dictionary = new TokenDictionary();
+        String[] segments = new String[64];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = EditDistanceTest.randomSegment(random);
+        }
+
+        // Pairs are drawn from a small set, so most distances come from the cache
+        for (int i = 0; i < 5000; i++) {
+            int t1 = dictionary.intern(segments[random.nextInt(segments.length)]);
+            int t2 = dictionary.intern(segments[random.nextInt(segments.length)]);
+            int n1 = dictionary.normal(t1);
+            int n2 = dictionary.normal(t2);
+
+            int expected = StringUtils.getLevenshteinDistance(dictionary.token(n1), dictionary.token(n2));
+            int atLeast = random.nextInt(12);
+            int bounded = dictionary.distance(n1, n2, atLeast);
+            if (expected < atLeast)
+                assertTrue(bounded == -1 || bounded == expected);
+            else
+                assertEquals(expected, bounded);
+        }
+    }
+
+    @Test
+    public void testMatchScore() {
+        Random random = new Random(11);
+        TokenDictionary dictionary = new TokenDictionary();
+        for (int i = 0; i < 2000; i++) {
+            String s1 = EditDistanceTest.randomSegment(random);
+            String s2 = EditDistanceTest.randomSegment(random);
+            int t1 = dictionary.intern(s1);
+            int t2 = dictionary.intern(s2);
+
+            assertEquals(URLRegex.matchScore(s1, s2), URLRegex.matchScore(dictionary, t1, t2, 0.0,
+                Double.NEGATIVE_INFINITY), 0.0);
+
+            double diagonal = random.nextInt(4) * 0.25;
+            double skip = diagonal + random.nextDouble() * 0.6;
+            assertEquals(URLRegex.matchScore(s1, s2, diagonal, skip), URLRegex.matchScore(dictionary, t1, t2,
+                diagonal, skip), 0.0);
+        }
+    }
+
+    @Test
+    public void testTrim() {
+        TokenDictionary dictionary = new TokenDictionary();
+        for (int i = 0; i < TokenDictionary.MAX_SIZE; i++) {
+            dictionary.intern("segment-" + i);
+        }
+        assertEquals(TokenDictionary.MAX_SIZE + 1, dictionary.size());
+        dictionary.trim();
+        assertEquals(0, dictionary.size());
+        assertEquals(0, dictionary.intern("forums"));
+    }
+}
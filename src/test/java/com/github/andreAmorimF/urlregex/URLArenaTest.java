@@ -0,0 +1,84 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class URLArenaTest {
+
+    @Test
+    public void testRoundTrip() {
+        List<String> urls = Arrays.asList("http://www.domain.com/forums/viewforum_31.htm",
+            "http://www.domain.com/caf\u00e9/menu", "", "http://www.domain.com/a",
+            "http://www.domain.com/forums/viewtopic.php?t=12&sid=a3f9", "http://www.\u65e5\u672c.jp/");
+
+        for (boolean direct : new boolean[] {false, true}) {
+            // Chunks smaller than most urls
+            URLArena arena = new URLArena(direct, 16);
+            arena.addAll(urls);
+            assertEquals(direct, arena.isDirect());
+            assertEquals(urls.size(), arena.size());
+
+            long bytes = 0;
+            for (int i = 0; i < urls.size(); i++) {
+                assertEquals(urls.get(i), arena.get(i).toString());
+                assertEquals(urls.get(i).length(), arena.get(i).length());
+                bytes += urls.get(i).getBytes(StandardCharsets.UTF_8).length;
+            }
+            assertEquals(bytes, arena.byteSize());
+            assertEquals("forums", arena.get(0).subSequence(22, 28).toString());
+        }
+    }
+
+    @Test
+    public void testBuild() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (String[] inputs : URLRegexCases.ALL) {
+                List<String> urls = Arrays.asList(inputs);
+                URLArena arena = new URLArena(true);
+                arena.addAll(urls);
+
+                assertEquals(new URLRegexBuilder().addAll(urls).snapshot().pattern(),
+                    new URLRegexBuilder().addAll(arena).snapshot().pattern());
+
+                Pattern pattern = URLRegex.buildPattern(arena, pool);
+                for (String url : urls) {
+                    assertTrue(pattern.pattern() + " with " + url, pattern.matcher(url).matches());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        List<String> urls = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            String url = "http://www.domain.com/forums/viewforum_" + i + ".htm" + (i % 7 == 0 ? "?page=" + i : "");
+            urls.add(url);
+            content.append(url).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        URLArena arena = new URLArena().read(new ByteArrayInputStream(bytes));
+
+        assertEquals(urls.size(), arena.size());
+        for (int i = 0; i < urls.size(); i++) {
+            assertEquals(urls.get(i), arena.get(i).toString());
+        }
+        assertEquals(new URLRegexBuilder().addAll(urls).snapshot().pattern(),
+            new URLRegexBuilder().addAll(arena).snapshot().pattern());
+    }
+}
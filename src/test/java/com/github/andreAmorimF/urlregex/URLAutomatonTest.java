@@ -0,0 +1,111 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class URLAutomatonTest {
+
+    @Test
+    public void testSameAsPattern() {
+        Random random = new Random(7);
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            Pattern pattern = URLRegex.buildPattern(urls);
+            URLAutomaton automaton = URLAutomaton.compile(pattern);
+
+            for (String probe : probes(urls, random)) {
+                System.out.println("Testing " + pattern + " with : " + probe);
+                assertEquals(pattern.matcher(probe).matches(), automaton.matches(probe));
+            }
+        }
+    }
+
+    @Test
+    public void testBuilderSnapshot() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/forums/viewforum_31.htm?query=value");
+        builder.add("https://www.domain.com/forums/viewforum_32.htm");
+
+        URLAutomaton automaton = builder.snapshotAutomaton();
+        assertTrue(automaton.matches("https://www.domain.com/forums/viewforum_1.htm?query=x&query=y"));
+        assertTrue(automaton.matches("http://www.domain.com/forums/viewforum_32.htm"));
+        assertFalse(automaton.matches("http://www.domain.com/forums/viewforum_.htm"));
+        assertFalse(automaton.matches("ftp://www.domain.com/forums/viewforum_32.htm"));
+        assertFalse(automaton.matches("http://www.domain.com/forums/viewforum_32.htm?other=x"));
+    }
+
+    @Test
+    public void testNonAscii() {
+        URLAutomaton automaton = URLAutomaton.compile("^http://www\\.domain\\.fr/caf\u00e9/[^/]+$");
+        assertTrue(automaton.matches("http://www.domain.fr/caf\u00e9/th\u00e9"));
+        assertFalse(automaton.matches("http://www.domain.fr/cafe/the"));
+        assertFalse(automaton.matches("http://www.domain.fr/caf\u00e8/the"));
+    }
+
+    @Test
+    public void testNonCapturingGroup() {
+        String regex = "^http://h\\.com/p\\??([&;]?(?:id|p)=[^&;]+|[^&;=]+)*$";
+        URLAutomaton automaton = URLAutomaton.compile(regex);
+        Pattern pattern = Pattern.compile(regex);
+        for (String url : new String[]{"http://h.com/p", "http://h.com/p?id=1&p=2", "http://h.com/p?x",
+            "http://h.com/p?q=1", "http://h.com/p?id=", "http://h.com/p?:id=1", "http://h.com/p?idp=1"}) {
+            assertEquals(url, pattern.matcher(url).matches(), automaton.matches(url));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupported() {
+        URLAutomaton.compile("^http://(?=www).*$");
+    }
+
+    @Test(timeout = 5000)
+    public void testHostileInput() {
+        List<String> urls = new ArrayList<>();
+        urls.add("http://forum.domain.com/some-controller/some-action?baz");
+        urls.add("http://forum.domain.com/some-controller/some-action?test=2");
+        URLAutomaton automaton = URLAutomaton.compile(URLRegex.buildPattern(urls));
+
+        StringBuilder url = new StringBuilder("http://forum.domain.com/some-controller/some-action?");
+        for (int i = 0; i < 100000; i++) {
+            url.append('a');
+        }
+        url.append('=');
+        assertFalse(automaton.matches(url));
+    }
+
+    /**
+     * Inputs, plus inputs with a few chars replaced, inserted or removed
+     */
+    static List<String> probes(List<String> urls, Random random) {
+        String alphabet = "/?&;=.-_#a1Z\u00e9";
+        List<String> probes = new ArrayList<>(urls);
+        for (String url : urls) {
+            for (int i = 0; i < 30; i++) {
+                StringBuilder probe = new StringBuilder(url);
+                int pos = random.nextInt(probe.length());
+                char c = alphabet.charAt(random.nextInt(alphabet.length()));
+                switch (random.nextInt(3)) {
+                    case 0:
+                        probe.setCharAt(pos, c);
+                        break;
+                    case 1:
+                        probe.insert(pos, c);
+                        break;
+                    default:
+                        probe.deleteCharAt(pos);
+                }
+                probes.add(probe.toString());
+            }
+        }
+        return probes;
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class URLClustersTest {
+
+    private static final String[] WORDS = {"travel", "costa", "rica", "city", "tours", "five", "highlights", "your",
+        "obsession", "shoes", "hats", "winter", "sale"};
+
+    /**
+     * Forum pages, articles and searches of the same site, interleaved
+     */
+    static List<String> mixedSite(int size, long seed) {
+        Random random = new Random(seed);
+        List<String> urls = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            switch (i % 3) {
+                case 0:
+                    urls.add("http://www.domain.com/forums/viewforum_" + random.nextInt(1000) + ".htm");
+                    break;
+                case 1:
+                    StringBuilder slug = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+                    for (int j = random.nextInt(4); j >= 0; j--) {
+                        slug.append('-').append(WORDS[random.nextInt(WORDS.length)]);
+                    }
+                    urls.add("http://www.domain.com/articles/" + (2000 + random.nextInt(20)) + "/" + slug + "_" +
+                        random.nextInt(10000));
+                    break;
+                default:
+                    urls.add("http://www.domain.com/search?q=" + WORDS[random.nextInt(WORDS.length)] + "&page=" +
+                        random.nextInt(50));
+            }
+        }
+        return urls;
+    }
+
+    @Test
+    public void testMixedSite() {
+        List<String> urls = mixedSite(3000, 5);
+        List<Pattern> patterns = URLRegex.buildPatterns(urls);
+        assertEquals(3, patterns.size());
+
+        // Each kind of page has its own pattern, in order of appearance
+        for (int i = 0; i < urls.size(); i++) {
+            String url = urls.get(i);
+            for (int j = 0; j < patterns.size(); j++) {
+                assertEquals(patterns.get(j) + " with " + url, i % 3 == j, patterns.get(j).matcher(url).matches());
+            }
+        }
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d+\\.htm$", patterns.get(0).pattern());
+        assertEquals("^http://www\\.domain\\.com/articles/\\d+/[^?]+_\\d+$", patterns.get(1).pattern());
+        assertEquals("^http://www\\.domain\\.com/search\\??([&;]?(?:q|page)=[^&;]+)+$", patterns.get(2).pattern());
+
+        // One pattern over all urls accepts any page of the site
+        String other = "http://www.domain.com/cart/checkout";
+        assertTrue(URLRegex.buildPattern(urls).matcher(other).matches());
+        for (Pattern pattern : patterns) {
+            assertFalse(pattern.matcher(other).matches());
+        }
+    }
+
+    @Test
+    public void testClusters() {
+        List<String> urls = mixedSite(300, 7);
+        List<List<String>> clusters = URLClusters.cluster(urls, ForkJoinPool.commonPool());
+        assertEquals(3, clusters.size());
+        for (int i = 0; i < clusters.size(); i++) {
+            assertEquals(urls.get(i), clusters.get(i).get(0));
+            assertEquals(100, clusters.get(i).size());
+        }
+
+        // Same clusters from the same urls, whatever the pool
+        assertEquals(clusters, URLClusters.cluster(urls, new ForkJoinPool(1)));
+
+        assertTrue(URLClusters.cluster(new ArrayList<String>(), ForkJoinPool.commonPool()).isEmpty());
+        assertTrue(URLRegex.buildPatterns(new ArrayList<String>()).isEmpty());
+    }
+
+    @Test
+    public void testAllUrlsMatched() {
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            List<Pattern> patterns = URLRegex.buildPatterns(urls);
+            assertTrue(patterns.size() <= urls.size());
+            for (String url : urls) {
+                boolean matched = false;
+                for (Pattern pattern : patterns) {
+                    matched |= pattern.matcher(url).matches();
+                }
+                assertTrue(patterns + " with " + url, matched);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class URLModelTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random random = new Random(19);
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            URLModel model = new URLRegexBuilder().addAll(urls).snapshotModel();
+
+            for (boolean withAutomaton : new boolean[]{false, true}) {
+                URLModel read = URLModel.readFrom(new ByteArrayInputStream(write(model, withAutomaton)));
+                assertEquals(model, read);
+                assertEquals(model.toPattern().toString(), read.toPattern().toString());
+                assertEquals(model.isQueryOptional(), read.isQueryOptional());
+
+                URLAutomaton automaton = read.toAutomaton();
+                assertEquals(model.toPattern().pattern(), automaton.toString());
+                for (String probe : URLAutomatonTest.probes(urls, random)) {
+                    assertEquals(model.toPattern().matcher(probe).matches(), automaton.matches(probe));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWarmStart() throws IOException {
+        List<String> first = Arrays.asList(URLRegexCases.LAST_ELEMENT_2).subList(0, 4);
+        List<String> second = Arrays.asList(URLRegexCases.LAST_ELEMENT_2).subList(4, 8);
+
+        URLModel model = new URLRegexBuilder().addAll(first).snapshotModel();
+        URLRegexBuilder resumed = new URLRegexBuilder(URLModel.readFrom(new ByteArrayInputStream(write(model, false))));
+        resumed.addAll(second);
+
+        URLRegexBuilder builder = new URLRegexBuilder().addAll(first).addAll(second);
+        assertEquals(builder.snapshot().toString(), resumed.snapshot().toString());
+        assertEquals(8, resumed.size());
+    }
+
+    @Test
+    public void testModelIsACopy() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/forums/viewforum_31.htm?page=2");
+        URLModel model = builder.snapshotModel();
+        String pattern = model.toPattern().toString();
+
+        builder.add("http://www.domain.com/topics/viewtopic_32.htm");
+        model.getSegments().get(1).setContent("changed");
+        assertEquals(pattern, model.toPattern().toString());
+        assertFalse(model.isQueryOptional());
+        assertTrue(model.allowsHttp());
+        assertFalse(model.allowsSSL());
+    }
+
+    @Test
+    public void testInvalidInput() throws IOException {
+        URLModel model = new URLRegexBuilder().add("http://www.domain.com/forums/").snapshotModel();
+        byte[] bytes = write(model, true);
+
+        byte[] magic = bytes.clone();
+        magic[0] = 'X';
+        assertInvalid(magic, "Not a url model");
+
+        byte[] version = bytes.clone();
+        version[4] = (byte) (URLModel.VERSION + 1);
+        assertInvalid(version, "Unsupported url model version");
+
+        assertInvalid(Arrays.copyOf(bytes, bytes.length - 3), "Truncated url model");
+    }
+
+    @Test
+    public void testCorruptedLengths() throws IOException {
+        URLModel model = new URLRegexBuilder().add("http://www.domain.com/forums/").snapshotModel();
+        byte[] bytes = write(model, true);
+
+        // Counts and lengths are checked before anything is allocated from them
+        assertInvalid(withInt(bytes, SEGMENTS_COUNT, Integer.MAX_VALUE), "Corrupted url model");
+        assertInvalid(withInt(bytes, SEGMENTS_COUNT, -1), "Corrupted url model");
+        assertInvalid(withInt(bytes, SEGMENTS_COUNT + 4, Integer.MAX_VALUE), "Corrupted url model");
+        assertInvalid(withInt(bytes, SEGMENTS_COUNT + 4, -1), "Corrupted url model");
+
+        // Lengths within bounds but past the end of the stream
+        assertInvalid(withInt(bytes, SEGMENTS_COUNT + 4, URLModel.MAX_STRING_LENGTH), "Truncated url model");
+        assertInvalid(withInt(bytes, SEGMENTS_COUNT, URLModel.MAX_SEGMENTS), "Truncated url model");
+
+        int automaton = write(model, false).length;
+        int classCount = automaton + 4 + model.toPattern().pattern().length();
+        int states = classCount + 8 + 128 * 4 + 4;
+        assertInvalid(withInt(bytes, classCount, Integer.MAX_VALUE), "Corrupted automaton");
+        assertInvalid(withInt(bytes, classCount, 128 + 2), "Corrupted automaton");
+        assertInvalid(withInt(bytes, automaton, Integer.MAX_VALUE), "Corrupted url model");
+        assertInvalid(withInt(bytes, states, URLAutomaton.MAX_STATES + 1), "Corrupted automaton");
+        assertInvalid(withInt(bytes, states, URLAutomaton.MAX_STATES), "Truncated url model");
+    }
+
+    @Test
+    public void testReadVersion1() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(URLModel.MAGIC);
+        out.writeByte(1);
+        out.writeByte(1);
+        out.writeInt(2);
+        out.writeInt(1);
+        out.writeInt(2);
+        URLModel.writeString(out, "com.domain.www");
+        URLModel.writeString(out, "/");
+        out.writeBoolean(false);
+        URLModel.writeString(out, "search");
+        URLModel.writeString(out, "");
+        out.writeBoolean(false);
+        out.writeInt(2);
+        URLModel.writeString(out, "page");
+        out.writeBoolean(true);
+        URLModel.writeString(out, "print");
+        out.writeBoolean(false);
+
+        URLModel model = URLModel.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals("^http://www\\.domain\\.com/search\\??([&;]?page=[^&;]+|[^&;=]+)*$", model.toString());
+        assertEquals(QueryModel.ValueType.FREE, model.getQueryModel().valueType("page"));
+        assertFalse(model.getQueryModel().isValued("print"));
+        assertEquals(model, URLModel.readFrom(new ByteArrayInputStream(write(model, false))));
+    }
+
+    /**
+     * Offset of the number of segments in a model, followed by the length of the content of the first one
+     */
+    private static final int SEGMENTS_COUNT = 14;
+
+    private static byte[] withInt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
+    private static void assertInvalid(byte[] bytes, String message) {
+        try {
+            URLModel.readFrom(new ByteArrayInputStream(bytes));
+            fail("Read an invalid model");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+        }
+    }
+
+    private static byte[] write(URLModel model, boolean withAutomaton) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        model.writeTo(out, withAutomaton);
+        return out.toByteArray();
+    }
+}
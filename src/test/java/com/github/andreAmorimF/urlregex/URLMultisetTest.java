@@ -0,0 +1,148 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class URLMultisetTest {
+
+    @Test
+    public void testMatchesAllUrls() {
+        for (String[] inputs : URLRegexCases.ALL) {
+            Pattern pattern = new URLMultiset().addAll(Arrays.asList(inputs)).snapshot();
+            for (String input : inputs) {
+                assertTrue(pattern.pattern() + " with " + input, pattern.matcher(input).matches());
+            }
+        }
+    }
+
+    @Test
+    public void testRemove() {
+        List<String> urls = Arrays.asList("http://www.domain.com/forums/viewforum_31.htm",
+            "http://www.domain.com/forums/viewforum_32.htm", "http://www.domain.com/forums/viewtopic_7.htm",
+            "http://www.domain.com/forums/viewtopic_8.htm");
+        URLMultiset set = new URLMultiset().addAll(urls);
+        Pattern before = set.snapshot();
+
+        set.add("http://www.domain.com/forums/archive/2011/index.htm");
+        set.add("https://www.domain.com/forums/archive/2011/index.htm");
+        assertTrue(set.snapshot().matcher("https://www.domain.com/forums/archive/2011/index.htm").matches());
+
+        // Removing the urls just added gives back the same pattern
+        assertTrue(set.remove("http://www.domain.com/forums/archive/2011/index.htm"));
+        assertTrue(set.remove("https://www.domain.com/forums/archive/2011/index.htm"));
+        assertFalse(set.remove("https://www.domain.com/forums/archive/2011/index.htm"));
+        assertEquals(before.pattern(), set.snapshot().pattern());
+        assertEquals(4, set.size());
+
+        // Urls removed only once are still there
+        set.add(urls.get(0)).add(urls.get(0));
+        assertTrue(set.remove(urls.get(0)));
+        assertEquals(2, set.count(urls.get(0)));
+        assertEquals(before.pattern(), set.snapshot().pattern());
+
+        for (String url : urls.subList(2, 4)) {
+            set.remove(url);
+        }
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d+\\.htm$", set.snapshot().pattern());
+        assertEquals(3, set.size());
+        assertEquals(2, set.distinctCount());
+    }
+
+    @Test
+    public void testRemoveQueries() {
+        URLMultiset set = new URLMultiset();
+        set.add("http://www.domain.com/search?id=1&q=shoes");
+        set.add("http://www.domain.com/search?id=2");
+        set.add("http://www.domain.com/search?id=2");
+        set.add("http://www.domain.com/search");
+        set.remove("http://www.domain.com/search?id=1&q=shoes");
+        set.remove("http://www.domain.com/search");
+
+        URLMultiset expected = new URLMultiset();
+        expected.add("http://www.domain.com/search?id=2");
+        expected.add("http://www.domain.com/search?id=2");
+        assertEquals(expected.snapshotModel(), set.snapshotModel());
+        assertEquals(2, set.snapshotModel().getQueryModel().count("id"));
+        assertEquals(0, set.snapshotModel().getQueryModel().count("q"));
+        assertFalse(set.snapshot().matcher("http://www.domain.com/search").matches());
+
+        // Urls added once queries are stale are collected again as well
+        set.add("http://www.domain.com/search?page=3");
+        assertEquals(Arrays.asList("id", "page"),
+            new ArrayList<>(set.snapshotModel().getQueryModel().keys()));
+    }
+
+    @Test
+    public void testSupport() {
+        URLMultiset set = new URLMultiset();
+        for (int i = 0; i < 3; i++) {
+            set.add("http://www.domain.com/forums/viewforum_31.htm");
+        }
+        set.add("http://www.domain.com/forums/viewforum_32.htm");
+        set.add("http://www.domain.com/forums/f1/viewforum_33.htm");
+
+        assertEquals("^http://www\\.domain\\.com/forums/(f1/)?viewforum_\\d+\\.htm$", set.snapshot().pattern());
+        assertArrayEquals(new int[] {5, 5, 1, 5}, set.support());
+
+        set.remove("http://www.domain.com/forums/viewforum_31.htm");
+        assertArrayEquals(new int[] {4, 4, 1, 4}, set.support());
+    }
+
+    @Test
+    public void testIncrementalFolds() {
+        URLMultiset set = new URLMultiset();
+        for (int i = 0; i < 256; i++) {
+            set.add("http://www.domain.com/forums/f" + (i % 7) + "/viewtopic_" + i + ".htm");
+        }
+        Pattern pattern = set.snapshot();
+        assertEquals(255, set.generalizeCount());
+
+        // Only the nodes above the changed leaf are generalized again
+        long generalized = set.generalizeCount();
+        set.add("http://www.domain.com/forums/f1/viewtopic_1.htm");
+        assertEquals(pattern.pattern(), set.snapshot().pattern());
+        assertTrue(set.generalizeCount() - generalized <= 8);
+
+        generalized = set.generalizeCount();
+        set.add("http://www.domain.com/forums/new/viewtopic_1.htm");
+        set.snapshot();
+        assertTrue(set.generalizeCount() - generalized <= 9);
+
+        generalized = set.generalizeCount();
+        set.remove("http://www.domain.com/forums/new/viewtopic_1.htm");
+        assertEquals(pattern.pattern(), set.snapshot().pattern());
+        assertTrue(set.generalizeCount() - generalized <= 9);
+    }
+
+    @Test
+    public void testCompact() {
+        URLMultiset set = new URLMultiset();
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            urls.add("http://www.domain.com/forums/f" + i + "/viewtopic_" + i + ".htm");
+        }
+        set.addAll(urls);
+        for (String url : urls.subList(0, 90)) {
+            assertTrue(set.remove(url));
+        }
+        Pattern pattern = set.snapshot();
+        for (String url : urls.subList(90, 100)) {
+            assertTrue(pattern.matcher(url).matches());
+        }
+        for (String url : urls.subList(90, 100)) {
+            set.remove(url);
+        }
+        assertEquals(0, set.size());
+        assertEquals(0, set.support().length);
+        assertFalse(set.snapshot().matcher("http://www.domain.com/forums/f1/viewtopic_1.htm").matches());
+    }
+}
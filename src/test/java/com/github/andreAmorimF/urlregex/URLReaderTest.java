@@ -0,0 +1,156 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class URLReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFile() throws IOException {
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            Path path = write(join(urls, "\n"), false);
+            assertEquals(expected(urls), URLRegex.buildPattern(path).toString());
+        }
+    }
+
+    @Test
+    public void testChunkBoundaries() throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            urls.add("http://www.domain.com/forums/viewforum_" + i + ".htm" + (i % 5 == 0 ? "?page=" + i : ""));
+        }
+        Path path = write(join(urls, "\r\n") + "\r\n\r\n", false);
+
+        // Chunks smaller than a line force the region to grow
+        for (int chunkSize : new int[]{7, 16, 61, 1024}) {
+            URLRegexBuilder builder = new URLRegexBuilder();
+            new URLReader(builder).read(path, chunkSize);
+            assertEquals(urls.size(), builder.size());
+            assertEquals(expected(urls), builder.snapshot().toString());
+        }
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_2);
+        String content = join(urls, "\n") + "\n";
+
+        assertEquals(expected(urls), URLRegex.buildPattern(write(content, true)).toString());
+        assertEquals(expected(urls), URLRegex.buildPattern(stream(content, true)).toString());
+        assertEquals(expected(urls), URLRegex.buildPattern(stream(content, false)).toString());
+    }
+
+    @Test
+    public void testNonAscii() throws IOException {
+        List<String> urls = Arrays.asList("http://www.domain.fr/caf\u00e9/menu", "http://www.domain.fr/th\u00e9/menu",
+            "http://www.domain.fr/cafe/menu");
+        Path path = write(join(urls, "\n"), false);
+
+        Pattern pattern = URLRegex.buildPattern(path);
+        assertEquals(expected(urls), pattern.toString());
+        Matcher matcher = pattern.matcher("");
+        for (String url : urls) {
+            matcher.reset(url);
+            assertTrue(matcher.matches());
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        String expected = new URLRegexBuilder().snapshot().toString();
+        assertEquals(expected, URLRegex.buildPattern(write("", false)).toString());
+        assertEquals(expected, URLRegex.buildPattern(stream("\n\n", false)).toString());
+        assertEquals(expected, URLRegex.buildPattern(stream("", true)).toString());
+    }
+
+    @Test
+    public void testStopsWhenConverged() throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            urls.add("http://www.domain.com/topic/" + i + "/page/" + (i % 30));
+        }
+        String content = join(urls, "\n");
+
+        URLRegexBuilder builder = new URLRegexBuilder().withConvergenceWindow(50);
+        new URLReader(builder).read(write(content, false), 64);
+        assertEquals(52, builder.size());
+
+        builder = new URLRegexBuilder().withConvergenceWindow(50);
+        new URLReader(builder).read(stream(content, true));
+        assertEquals(52, builder.size());
+        assertEquals(expected(urls), builder.snapshot().toString());
+    }
+
+    @Test
+    public void testStream() {
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            assertEquals(expected(urls), URLRegex.buildPattern(urls.stream()).toString());
+
+            Matcher matcher = URLRegex.buildPattern(urls.parallelStream()).matcher("");
+            for (String url : urls) {
+                matcher.reset(url);
+                assertTrue(matcher.matches());
+            }
+        }
+    }
+
+    private static String expected(List<String> urls) {
+        return new URLRegexBuilder().addAll(urls).snapshot().toString();
+    }
+
+    private static String join(List<String> urls, String separator) {
+        StringBuilder content = new StringBuilder();
+        for (String url : urls) {
+            if (content.length() > 0)
+                content.append(separator);
+            content.append(url);
+        }
+        return content.toString();
+    }
+
+    private Path write(String content, boolean gzip) throws IOException {
+        File file = folder.newFile(gzip ? "urls.txt.gz" : "urls.txt");
+        try (OutputStream out = gzip ? new GZIPOutputStream(new FileOutputStream(file)) :
+            new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file.toPath();
+    }
+
+    private static InputStream stream(String content, boolean gzip) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+        }
+        return new ByteArrayInputStream(bytes);
+    }
+}
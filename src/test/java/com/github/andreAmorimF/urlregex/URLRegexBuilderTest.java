@@ -0,0 +1,166 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class URLRegexBuilderTest {
+
+    @Test
+    public void testSameAsBuildPattern() {
+        List<String> urls = new ArrayList<>();
+        urls.add("http://www.domain.com/forums");
+        urls.add("http://www.domain.com/forums/");
+        urls.add("https://www.domain.com/forums/");
+        urls.add("http://forum.domain.com/forums/viewforum_31.htm");
+        urls.add("http://forum.domain.com/test/viewforum_32.htm");
+        urls.add("http://www.domain.com/forums/viewforum_25.htm");
+        urls.add("http://forum.domain.com/forums/viewforum_31.htm?query=value");
+        urls.add("http://forum.domain.com/forums/viewforum_31.htm?query=value&query2=value2");
+        urls.add("http://forum.domain.com/forums/viewforum_31.htm#test");
+
+        URLRegexBuilder builder = new URLRegexBuilder();
+        for (String url : urls) {
+            builder.add(url);
+        }
+
+        assertEquals(URLRegex.buildPattern(urls).toString(), builder.snapshot().toString());
+        assertEquals(urls.size(), builder.size());
+    }
+
+    @Test
+    public void testSnapshotWhileAdding() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/forums/viewforum_31.htm");
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_31\\.htm$", builder.snapshot().toString());
+
+        List<String> urls = new ArrayList<>();
+        urls.add("http://www.domain.com/forums/viewforum_32.htm");
+        urls.add("http://www.domain.com/forums/viewforum_25.htm");
+        builder.addAll(urls);
+
+        String pattern = builder.snapshot().toString();
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d+\\.htm$", pattern);
+
+        Matcher matcher = Pattern.compile(pattern).matcher("");
+        for (String url : urls) {
+            matcher.reset(url);
+            System.out.println("Testing match with : " + url);
+            assertTrue(matcher.matches());
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        assertEquals(URLRegex.buildPattern(new ArrayList<String>()).toString(), builder.snapshot().toString());
+    }
+
+    @Test
+    public void testShapeDeduplication() {
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            URLRegexBuilder builder = new URLRegexBuilder().withShapeDeduplication().addAll(urls);
+            assertEquals(new URLRegexBuilder().addAll(urls).snapshot().toString(), builder.snapshot().toString());
+        }
+
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            urls.add("http://www.domain.com/topic/" + (i * 7919 % 100000) + "/page/" + (i % 30) + "?sid=" + i);
+        }
+        urls.add("https://www.domain.com/topic/");
+
+        URLRegexBuilder builder = new URLRegexBuilder().withShapeDeduplication().addAll(urls);
+        assertEquals(3, builder.foldedCount());
+        assertEquals(1.0 - 3.0 / 1001, builder.dedupRatio(), 1e-9);
+        assertEquals(new URLRegexBuilder().addAll(urls).snapshot().toString(), builder.snapshot().toString());
+
+        Matcher matcher = builder.snapshot().matcher("");
+        for (String url : urls) {
+            matcher.reset(url);
+            assertTrue(matcher.matches());
+        }
+    }
+
+    @Test
+    public void testShapeDeduplicationConstantNumbers() {
+        List<String> urls = Arrays.asList("http://h.com/a/12/v2/x", "http://h.com/a/13/v2/x", "http://h.com/a/14/v2/x");
+        URLRegexBuilder builder = new URLRegexBuilder().withShapeDeduplication().addAll(urls);
+        assertEquals(2, builder.foldedCount());
+        assertEquals("^http://h\\.com/a/\\d+/v2/x$", builder.snapshot().toString());
+        assertEquals(new URLRegexBuilder().addAll(urls).snapshot().toString(), builder.snapshot().toString());
+
+        // A segment constant so far varies on the third url
+        urls = Arrays.asList("http://h.com/forum-4/page-1", "http://h.com/forum-4/page-2", "http://h.com/forum-5/page-3",
+            "http://h.com/forum-6/page-4");
+        builder = new URLRegexBuilder().withShapeDeduplication().addAll(urls);
+        assertEquals(3, builder.foldedCount());
+        assertEquals(new URLRegexBuilder().addAll(urls).snapshot().toString(), builder.snapshot().toString());
+    }
+
+    @Test
+    public void testShapeDeduplicationSamePath() {
+        URLRegexBuilder builder = new URLRegexBuilder().withShapeDeduplication();
+        builder.add("http://www.domain.com/topic/123?page=1");
+        builder.add("http://www.domain.com/topic/123?page=2");
+        assertEquals(1, builder.foldedCount());
+        assertEquals("^http://www\\.domain\\.com/topic/123\\??([&;]?page=[^&;]+)+$", builder.snapshot().toString());
+
+        builder.add("http://www.domain.com/topic/124");
+        assertEquals(2, builder.foldedCount());
+        assertEquals("^http://www\\.domain\\.com/topic/\\d+\\??([&;]?page=[^&;]+)*$", builder.snapshot().toString());
+    }
+
+    @Test
+    public void testCoveredUrlsSkipAlignment() {
+        URLRegexBuilder builder = new URLRegexBuilder();
+        builder.add("http://www.domain.com/forums/viewforum_31.htm");
+        builder.add("http://www.domain.com/forums/viewforum_32.htm");
+        builder.add("http://www.domain.com/forums/viewforum_33.htm");
+        builder.add("http://www.domain.com/forums/viewforum_32.htm");
+        assertEquals(2, builder.foldedCount());
+
+        // Segment count or separators differ
+        builder.add("http://www.domain.com/forums/viewforum_34.htm/");
+        builder.add("http://www.domain.com/forums/");
+        assertEquals(4, builder.foldedCount());
+
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = new ArrayList<>(Arrays.asList(inputs));
+            urls.addAll(Arrays.asList(inputs));
+            assertEquals(URLRegex.buildPattern(urls).toString(), new URLRegexBuilder(true).addAll(urls).snapshot()
+                .toString());
+        }
+    }
+
+    @Test
+    public void testConvergence() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            urls.add("http://www.domain.com/topic/" + (i * 7919 % 100000) + "/page/" + (i % 30));
+        }
+
+        URLRegexBuilder builder = new URLRegexBuilder().withConvergenceWindow(100).addAll(urls);
+        assertTrue(builder.isConverged());
+        assertEquals(102, builder.convergedAfter());
+        assertEquals(102, builder.size());
+        assertEquals("^http://www\\.domain\\.com/topic/\\d+/page/\\d+$", builder.snapshot().toString());
+
+        // A new query parameter changes the model
+        builder.add("http://www.domain.com/topic/1/page/2?sid=3");
+        assertFalse(builder.isConverged());
+        assertEquals(-1, builder.convergedAfter());
+        builder.addAll(urls);
+        assertEquals(203, builder.convergedAfter());
+
+        assertFalse(new URLRegexBuilder().addAll(urls).isConverged());
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.andreAmorimF.urlregex;
+
+/**
+ * Inputs of the cases of {@link URLRegexTest}, which reads them from here, shared by the tests checking other builds
+ * and matchers against the same urls.
+ */
+final class URLRegexCases {
+
+    /**
+     * Inputs of {@link URLRegexTest#testStartEnd()}
+     */
+    static final String[] START_END = {
+        "http://www.domain.com/forums/", "https://www.domain.com/forums/"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testLastElement()}
+     */
+    static final String[] LAST_ELEMENT = {
+        "http://www.domain.com/forums/viewforum_31.htm", "http://www.domain.com/forums/viewforum_32.htm",
+        "http://www.domain.com/forums/viewforum_25.htm"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testLastElement2()}
+     */
+    static final String[] LAST_ELEMENT_2 = {
+        "http://www.domain.com/forums/viewforum_10-1.htm", "http://www.domain.com/forums/viewforum_10-10.htm",
+        "http://www.domain.com/forums/viewforum_10-100.htm", "http://www.domain.com/forums/viewforum_10-101.htm",
+        "http://www.domain.com/forums/viewforum_4767.htm", "http://www.domain.com/forums/viewtopic_49097-1.htm",
+        "http://www.domain.com/forums/viewforum_49702-77.htm", "http://www.domain.com/forums/viewtopic_50051-2.htm"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testLastElement3()}
+     */
+    static final String[] LAST_ELEMENT_3 = {
+        "http://www.domain.co.uk/test/forum/what-gives-away-your-travel-obsession_4732",
+        "http://www.domain.co.uk/test/forum", "http://www.domain.co.uk/test/forum/san-jose-costa-rica-city-tours_4731",
+        "http://www.domain.co.uk/test/forum/five-highlights-from-your--2014-travels_4730"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testLastElement4()}
+     */
+    static final String[] LAST_ELEMENT_4 = {
+        "http://www.domain.com/campaign/286", "http://www.domain.com/products/computers-printers-scanners",
+        "http://www.domain.com/offers/best-discounts"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testLastElement5()}
+     */
+    static final String[] LAST_ELEMENT_5 = {
+        "http://www.domain.fr/visage/exfoliant.aspx", "http://www.domain.fr/visage/toniques.aspx",
+        "http://www.domain.fr/search.aspx#?fh_location=categories%3C%7Buniversefr_frc_makeup%7D%2Ffacet_product_type_fr%3E%7Bfr_fr_product_type_foundation%7D"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testLastElement6()}
+     */
+    static final String[] LAST_ELEMENT_6 = {
+        "http://a/b/list", "http://a/b/c/d/list"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testNotRequiredElement()}
+     */
+    static final String[] NOT_REQUIRED_ELEMENT = {
+        "http://www.letempledelaforme.com/forums/",
+        "http://www.letempledelaforme.com/forums/16/forum-musculation/view/page/3",
+        "http://www.letempledelaforme.com/forums/22/forum-cardio/view/page/6",
+        "http://www.letempledelaforme.com/forums/34/test-cardio/view/page/23"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testNotRequiredElement2()}
+     */
+    static final String[] NOT_REQUIRED_ELEMENT_2 = {
+        "http://www.domain.com/forums", "http://www.domain.com/forums/",
+        "http://www.domain.com/forums/viewforum_31.htm", "http://www.domain.com/forums/viewforum_32.htm",
+        "http://www.domain.com/forums/viewforum_25.htm"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testLastSlash()}
+     */
+    static final String[] LAST_SLASH = {
+        "http://forum.cultureco.com/informatique-assistance-et",
+        "http://forum.cultureco.com/informatique-assistance-et-conseils/", "http://forum.cultureco.com/bli/"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testQuery()}
+     */
+    static final String[] QUERY = {
+        "http://forum.domain.com/forums/viewforum_31.htm?query=value",
+        "http://forum.domain.com/forums/viewforum_32.htm?query=value&query2=value2",
+        "http://forum.domain.com/forums/viewforum_25.htm?query3=value3",
+        "http://forum.domain.com/forums/viewforum_25.htm", "http://forum.domain.com/forums/viewforum_25/"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testQuery2()}
+     */
+    static final String[] QUERY_2 = {
+        "http://georezo.net/forum/viewforum.php?id=50", "http://georezo.net/forum/viewforum.php?id=1&p=2"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testQuery5()}
+     */
+    static final String[] QUERY_5 = {
+        "http://forum.domain.com/some-controller/some-action",
+        "http://forum.domain.com/some-controller/some-action?baz",
+        "http://forum.domain.com/some-controller/some-action?foo",
+        "http://forum.domain.com/some-controller/some-action?edit",
+        "http://forum.domain.com/some-controller/some-action?spam",
+        "http://forum.domain.com/some-controller/some-action?eggs",
+        "http://forum.domain.com/some-controller/some-action?ham",
+        "http://forum.domain.com/some-controller/some-action?test=2"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testFragments2()}
+     */
+    static final String[] FRAGMENTS_2 = {
+        "http://www.domain.fr/corps-bain/savon.aspx#/savon.aspx",
+        "http://www.domain.fr/corps-bain/deodorants.aspx#/deodorants.aspx"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testAllTogether()}
+     */
+    static final String[] ALL_TOGETHER = {
+        "http://www.domain.com/forums", "http://www.domain.com/forums/", "https://www.domain.com/forums/",
+        "http://forum.domain.com/forums/viewforum_31.htm", "http://forum.domain.com/test/viewforum_32.htm",
+        "http://www.domain.com/forums/viewforum_25.htm", "http://forum.domain.com/forums/viewforum_31.htm?query=value",
+        "http://forum.domain.com/forums/viewforum_31.htm?query=value&query2=value2",
+        "http://forum.domain.com/forums/viewforum_31.htm?query=value;query2=value2",
+        "http://forum.domain.com/forums/viewforum_31.htm#test"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testHifen()}
+     */
+    static final String[] HIFEN = {
+        "http://www.vectra-gts.com/f17p50-rencontres-de-vectra-signum",
+        "http://www.vectra-gts.com/f1p100-presentation-des-membres",
+        "http://www.vectra-gts.com/f2p1950-presentation-des-membres"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testBadMatch()}
+     */
+    static final String[] BAD_MATCH = {
+        "http://forum.trader-finance.fr/actions-us/index2.html",
+        "http://forum.trader-finance.fr/actions-us/index3.html",
+        "http://forum.trader-finance.fr/actions-us/index4.html",
+        "http://forum.trader-finance.fr/indices-boursier/index2.html",
+        "http://forum.trader-finance.fr/indices-boursier/index3.html",
+        "http://forum.trader-finance.fr/indices-boursier/index9.html"};
+
+    /**
+     * Inputs of {@link URLRegexTest#testBadMatch2()}
+     */
+    static final String[] BAD_MATCH_2 = {
+        "http://www.tomshardware.co.uk/forum/forum-4/page-2.html",
+        "http://www.tomshardware.co.uk/forum/forum-4/page-20.html",
+        "http://www.tomshardware.co.uk/forum/forum-4/page-3.html",
+        "http://www.tomshardware.co.uk/forum/forum-74/page-100.html",
+        "http://www.tomshardware.co.uk/forum/forum-74/page-1000.html",
+        "http://www.tomshardware.co.uk/forum/forum-74/page-2.html",
+        "http://www.tomshardware.co.uk/forum/forum-74/page-200.html",
+        "http://www.tomshardware.co.uk/forum/forum-74/page-3.html"};
+
+    /**
+     * Every case above
+     */
+    static final String[][] ALL = {
+        START_END, LAST_ELEMENT, LAST_ELEMENT_2, LAST_ELEMENT_3, LAST_ELEMENT_4, LAST_ELEMENT_5, LAST_ELEMENT_6,
+        NOT_REQUIRED_ELEMENT, NOT_REQUIRED_ELEMENT_2, LAST_SLASH, QUERY, QUERY_2, QUERY_5, FRAGMENTS_2, ALL_TOGETHER,
+        HIFEN, BAD_MATCH, BAD_MATCH_2};
+
+    private URLRegexCases() {
+    }
+}
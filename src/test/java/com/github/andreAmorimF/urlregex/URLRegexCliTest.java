@@ -0,0 +1,85 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class URLRegexCliTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    public void testFiles() throws IOException {
+        File first = folder.newFile("first.txt");
+        Files.write(first.toPath(), Arrays.asList("http://www.domain.com/forums/viewforum_31.htm"),
+            StandardCharsets.UTF_8);
+        File second = folder.newFile("second.txt");
+        Files.write(second.toPath(), Arrays.asList("http://www.domain.com/forums/viewforum_32.htm"),
+            StandardCharsets.UTF_8);
+
+        assertEquals(0, run("", first.getPath(), second.getPath()));
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d+\\.htm$", output());
+    }
+
+    @Test
+    public void testStandardInput() {
+        assertEquals(0, run("http://www.domain.com/forums/\nhttps://www.domain.com/forums/\n"));
+        assertEquals("^https?://www\\.domain\\.com/forums/$", output());
+    }
+
+    @Test
+    public void testConvergenceWindow() {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append("http://www.domain.com/topic/").append(i).append('\n');
+        }
+        assertEquals(0, run(input.toString(), "--window", "10"));
+        assertEquals("^http://www\\.domain\\.com/topic/\\d+$", output());
+        assertEquals("Converged after 12 urls", err.toString().trim());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File model = new File(folder.getRoot(), "model.bin");
+        assertEquals(0, run("http://www.domain.com/forums/viewforum_31.htm\n", "--save", model.getPath()));
+        assertTrue(model.length() > 0);
+
+        out.reset();
+        assertEquals(0, run("http://www.domain.com/forums/viewforum_32.htm\n", "--load", model.getPath()));
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d+\\.htm$", output());
+        assertEquals(2, run("", "--band", "1", "--load", model.getPath()));
+    }
+
+    @Test
+    public void testErrors() {
+        assertEquals(2, run("", "--band"));
+        assertEquals(2, run("", "--band", "wide"));
+        assertEquals(1, run("", new File(folder.getRoot(), "missing.txt").getPath()));
+        assertTrue(err.toString().contains("Usage"));
+    }
+
+    private int run(String input, String... args) {
+        return URLRegexCli.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+            new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    private String output() {
+        return out.toString().trim();
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class URLRegexParallelTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void testSplitMatchesAllUrls() {
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            Pattern pattern = URLRegex.buildPattern(urls, POOL, 1);
+            Matcher matcher = pattern.matcher("");
+            for (String url : urls) {
+                matcher.reset(url);
+                System.out.println("Testing match of " + pattern + " with : " + url);
+                assertTrue(matcher.matches());
+            }
+        }
+    }
+
+    /**
+     * Every url folded in its own chunk: the pattern is the sequential one on every case, but for the cases where
+     * merging in tree order generalizes differently, see {@link URLRegex#buildPattern(List, ForkJoinPool)}
+     */
+    @Test
+    public void testSplitSameAsSequential() {
+        Map<String[], String> divergent = new HashMap<>();
+        divergent.put(URLRegexCases.LAST_ELEMENT_2, "^http://www\\.domain\\.com/forums/view[^?]+\\d+\\.htm$");
+        divergent.put(URLRegexCases.QUERY,
+            "^http://forum\\.domain\\.com/forums/viewforum_\\d+[^?]+\\??([&;]?(?:query|query2|query3)=[^&;]+)*$");
+
+        for (String[] inputs : URLRegexCases.ALL) {
+            List<String> urls = Arrays.asList(inputs);
+            String sequential = URLRegex.buildPattern(urls).toString();
+            String split = URLRegex.buildPattern(urls, POOL, 1).toString();
+            if (divergent.containsKey(inputs)) {
+                assertEquals(divergent.get(inputs), split);
+                assertFalse(sequential.equals(split));
+            } else {
+                assertEquals(sequential, split);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeInput() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            urls.add("http://www.domain.com/forums/viewforum_" + i + ".htm?page=" + (i % 7));
+        }
+
+        String pattern = URLRegex.buildPattern(urls, POOL, 100).toString();
+        assertEquals(URLRegex.buildPattern(urls).toString(), pattern);
+        assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d+\\.htm\\??([&;]?page=[^&;]+)+$", pattern);
+    }
+}
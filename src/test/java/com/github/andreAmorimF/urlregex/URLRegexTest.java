@@ -2,8 +2,17 @@ package com.github.andreAmorimF.urlregex;
 
 import org.junit.Test;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -15,9 +24,7 @@ public class URLRegexTest {
 
     @Test
     public void testStartEnd() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.com/forums/");
-        urls.add("https://www.domain.com/forums/");
+        List<String> urls = Arrays.asList(URLRegexCases.START_END);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertTrue(pattern.startsWith("^https?://"));
@@ -69,10 +76,7 @@ public class URLRegexTest {
 
     @Test
     public void testLastElement() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.com/forums/viewforum_31.htm");
-        urls.add("http://www.domain.com/forums/viewforum_32.htm");
-        urls.add("http://www.domain.com/forums/viewforum_25.htm");
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.domain\\.com/forums/viewforum_\\d+\\.htm$", pattern);
@@ -88,15 +92,7 @@ public class URLRegexTest {
 
     @Test
     public void testLastElement2() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.com/forums/viewforum_10-1.htm");
-        urls.add("http://www.domain.com/forums/viewforum_10-10.htm");
-        urls.add("http://www.domain.com/forums/viewforum_10-100.htm");
-        urls.add("http://www.domain.com/forums/viewforum_10-101.htm");
-        urls.add("http://www.domain.com/forums/viewforum_4767.htm");
-        urls.add("http://www.domain.com/forums/viewtopic_49097-1.htm");
-        urls.add("http://www.domain.com/forums/viewforum_49702-77.htm");
-        urls.add("http://www.domain.com/forums/viewtopic_50051-2.htm");
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_2);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.domain\\.com/forums/view[^?]+\\.htm$", pattern);
@@ -112,11 +108,7 @@ public class URLRegexTest {
 
     @Test
     public void testLastElement3() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.co.uk/test/forum/what-gives-away-your-travel-obsession_4732");
-        urls.add("http://www.domain.co.uk/test/forum");
-        urls.add("http://www.domain.co.uk/test/forum/san-jose-costa-rica-city-tours_4731");
-        urls.add("http://www.domain.co.uk/test/forum/five-highlights-from-your--2014-travels_4730");
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_3);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.domain\\.co\\.uk/test/forum/?([^?]+_\\d+)?$", pattern);
@@ -140,10 +132,7 @@ public class URLRegexTest {
 
     @Test
     public void testLastElement4(){
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.com/campaign/286");
-        urls.add("http://www.domain.com/products/computers-printers-scanners");
-        urls.add("http://www.domain.com/offers/best-discounts");
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_4);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.domain\\.com/[^/]+/[^?]+$", pattern);
@@ -159,10 +148,7 @@ public class URLRegexTest {
 
     @Test
     public void testLastElement5(){
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.fr/visage/exfoliant.aspx");
-        urls.add("http://www.domain.fr/visage/toniques.aspx");
-        urls.add("http://www.domain.fr/search.aspx#?fh_location=categories%3C%7Buniversefr_frc_makeup%7D%2Ffacet_product_type_fr%3E%7Bfr_fr_product_type_foundation%7D");
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_5);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.domain\\.fr/[^/]+/?([^?]+\\.aspx)?\\??([&;]?fh_location=[^&;]+)*$", pattern);
@@ -178,9 +164,7 @@ public class URLRegexTest {
 
     @Test
     public void testLastElement6() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://a/b/list");
-        urls.add("http://a/b/c/d/list");
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_6);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://a/b/(c/d/)?list$", pattern);
@@ -270,11 +254,7 @@ public class URLRegexTest {
 
     @Test
     public void testNotRequiredElement() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.letempledelaforme.com/forums/");
-        urls.add("http://www.letempledelaforme.com/forums/16/forum-musculation/view/page/3");
-        urls.add("http://www.letempledelaforme.com/forums/22/forum-cardio/view/page/6");
-        urls.add("http://www.letempledelaforme.com/forums/34/test-cardio/view/page/23");
+        List<String> urls = Arrays.asList(URLRegexCases.NOT_REQUIRED_ELEMENT);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.letempledelaforme\\.com/forums/(\\d+/[^/]+/view/page/\\d+)?$", pattern);
@@ -290,12 +270,7 @@ public class URLRegexTest {
 
     @Test
     public void testNotRequiredElement2() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.com/forums");
-        urls.add("http://www.domain.com/forums/");
-        urls.add("http://www.domain.com/forums/viewforum_31.htm");
-        urls.add("http://www.domain.com/forums/viewforum_32.htm");
-        urls.add("http://www.domain.com/forums/viewforum_25.htm");
+        List<String> urls = Arrays.asList(URLRegexCases.NOT_REQUIRED_ELEMENT_2);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.domain\\.com/forums/?(viewforum_\\d+\\.htm)?$", pattern);
@@ -311,13 +286,10 @@ public class URLRegexTest {
 
     @Test
     public void testLastSlash() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://forum.cultureco.com/informatique-assistance-et");
-        urls.add("http://forum.cultureco.com/informatique-assistance-et-conseils/");
-        urls.add("http://forum.cultureco.com/bli/");
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_SLASH);
 
         String pattern = URLRegex.buildPattern(urls).toString();
-        assertEquals("^http://forum\\.cultureco\\.com/[^?]+/?$", pattern);
+        assertEquals("^http://forum\\.cultureco\\.com/[^?]+$", pattern);
 
         Pattern compiled = Pattern.compile(pattern);
         Matcher matcher = compiled.matcher("");
@@ -357,15 +329,10 @@ public class URLRegexTest {
 
     @Test
     public void testQuery() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://forum.domain.com/forums/viewforum_31.htm?query=value");
-        urls.add("http://forum.domain.com/forums/viewforum_32.htm?query=value&query2=value2");
-        urls.add("http://forum.domain.com/forums/viewforum_25.htm?query3=value3");
-        urls.add("http://forum.domain.com/forums/viewforum_25.htm");
-        urls.add("http://forum.domain.com/forums/viewforum_25/");
+        List<String> urls = Arrays.asList(URLRegexCases.QUERY);
 
         String pattern = URLRegex.buildPattern(urls).toString();
-        assertEquals("^http://forum\\.domain\\.com/forums/viewforum_\\d+[^?]*/?\\??([&;]?query=[^&;]+|[&;]?query2=[^&;]+|[&;]?query3=[^&;]+)*$", pattern);
+        assertEquals("^http://forum\\.domain\\.com/forums/viewforum_\\d+[^?]*\\??([&;]?(?:query|query2|query3)=[^&;]+)*$", pattern);
 
         Pattern compiled = Pattern.compile(pattern);
         Matcher matcher = compiled.matcher("");
@@ -378,12 +345,10 @@ public class URLRegexTest {
 
     @Test
     public void testQuery2() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://georezo.net/forum/viewforum.php?id=50");
-        urls.add("http://georezo.net/forum/viewforum.php?id=1&p=2");
+        List<String> urls = Arrays.asList(URLRegexCases.QUERY_2);
 
         String pattern = URLRegex.buildPattern(urls).toString();
-        assertEquals("^http://georezo\\.net/forum/viewforum\\.php\\??([&;]?id=[^&;]+|[&;]?p=[^&;]+)+$", pattern);
+        assertEquals("^http://georezo\\.net/forum/viewforum\\.php\\??([&;]?(?:id|p)=[^&;]+)+$", pattern);
 
         Pattern compiled = Pattern.compile(pattern);
         Matcher matcher = compiled.matcher("");
@@ -400,7 +365,7 @@ public class URLRegexTest {
         urls.add("http://forum.domain.com/some-controller/some-action?=baz&foo=bar&edit&spam=eggs=ham&==&");
 
         String pattern = URLRegex.buildPattern(urls).toString();
-        assertEquals("^http://forum\\.domain\\.com/some\\-controller/some\\-action\\??([&;]?foo=[^&;]+|[&;]?spam=[^&;]+|[^&;=]+)+$", pattern);
+        assertEquals("^http://forum\\.domain\\.com/some\\-controller/some\\-action\\??([&;]?(?:foo|spam)=[^&;]+|[^&;=]+)+$", pattern);
     }
 
     @Test
@@ -436,15 +401,7 @@ public class URLRegexTest {
 
     @Test
     public void testQuery5(){
-        List<String> urls = new ArrayList<>();
-        urls.add("http://forum.domain.com/some-controller/some-action"); //optional query
-        urls.add("http://forum.domain.com/some-controller/some-action?baz");
-        urls.add("http://forum.domain.com/some-controller/some-action?foo");
-        urls.add("http://forum.domain.com/some-controller/some-action?edit");
-        urls.add("http://forum.domain.com/some-controller/some-action?spam");
-        urls.add("http://forum.domain.com/some-controller/some-action?eggs");
-        urls.add("http://forum.domain.com/some-controller/some-action?ham");
-        urls.add("http://forum.domain.com/some-controller/some-action?test=2");
+        List<String> urls = Arrays.asList(URLRegexCases.QUERY_5);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://forum\\.domain\\.com/some\\-controller/some\\-action\\??([&;]?test=[^&;]+|[^&;=]+)*$", pattern);
@@ -466,7 +423,7 @@ public class URLRegexTest {
         urls.add("http://forum.domain.com/forums/viewforum_25/");
 
         String pattern = URLRegex.buildPattern(urls).toString();
-        assertEquals("^http://forum\\.domain\\.com/forums/viewforum_\\d+[^?]*/?\\??([&;]?query=[^&;]+)*$", pattern);
+        assertEquals("^http://forum\\.domain\\.com/forums/viewforum_\\d+[^?]*\\??([&;]?query=[^&;]+)*$", pattern);
 
         Pattern compiled = Pattern.compile(pattern);
         Matcher matcher = compiled.matcher("");
@@ -479,9 +436,7 @@ public class URLRegexTest {
 
     @Test
     public void testFragments2() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.fr/corps-bain/savon.aspx#/savon.aspx");
-        urls.add("http://www.domain.fr/corps-bain/deodorants.aspx#/deodorants.aspx");
+        List<String> urls = Arrays.asList(URLRegexCases.FRAGMENTS_2);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.domain\\.fr/corps\\-bain/[^/]+\\.aspx#/[^?]+\\.aspx$", pattern);
@@ -497,20 +452,10 @@ public class URLRegexTest {
 
     @Test
     public void testAllTogether() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.domain.com/forums");
-        urls.add("http://www.domain.com/forums/");
-        urls.add("https://www.domain.com/forums/");
-        urls.add("http://forum.domain.com/forums/viewforum_31.htm");
-        urls.add("http://forum.domain.com/test/viewforum_32.htm");
-        urls.add("http://www.domain.com/forums/viewforum_25.htm");
-        urls.add("http://forum.domain.com/forums/viewforum_31.htm?query=value");
-        urls.add("http://forum.domain.com/forums/viewforum_31.htm?query=value&query2=value2");
-        urls.add("http://forum.domain.com/forums/viewforum_31.htm?query=value;query2=value2");
-        urls.add("http://forum.domain.com/forums/viewforum_31.htm#test");
+        List<String> urls = Arrays.asList(URLRegexCases.ALL_TOGETHER);
 
         String pattern = URLRegex.buildPattern(urls).toString();
-        assertEquals("^https?://[^/]+\\.domain\\.com/[^/]+/?(viewforum_\\d+\\.htm[^?]*)?\\??([&;]?query=[^&;]+|[&;]?query2=[^&;]+)*$", pattern);
+        assertEquals("^https?://[^/]+\\.domain\\.com/[^/]+/?(viewforum_\\d+\\.htm[^?]*)?\\??([&;]?(?:query|query2)=[^&;]+)*$", pattern);
 
         Pattern compiled = Pattern.compile(pattern);
         Matcher matcher = compiled.matcher("");
@@ -539,10 +484,7 @@ public class URLRegexTest {
 
     @Test
     public void testHifen() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.vectra-gts.com/f17p50-rencontres-de-vectra-signum");
-        urls.add("http://www.vectra-gts.com/f1p100-presentation-des-membres");
-        urls.add("http://www.vectra-gts.com/f2p1950-presentation-des-membres");
+        List<String> urls = Arrays.asList(URLRegexCases.HIFEN);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.vectra\\-gts\\.com/f\\d+p\\d+\\-[^?]+$", pattern);
@@ -550,13 +492,7 @@ public class URLRegexTest {
 
     @Test
     public void testBadMatch() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://forum.trader-finance.fr/actions-us/index2.html");
-        urls.add("http://forum.trader-finance.fr/actions-us/index3.html");
-        urls.add("http://forum.trader-finance.fr/actions-us/index4.html");
-        urls.add("http://forum.trader-finance.fr/indices-boursier/index2.html");
-        urls.add("http://forum.trader-finance.fr/indices-boursier/index3.html");
-        urls.add("http://forum.trader-finance.fr/indices-boursier/index9.html");
+        List<String> urls = Arrays.asList(URLRegexCases.BAD_MATCH);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://forum\\.trader\\-finance\\.fr/[^/]+/index\\d+\\.html$", pattern);
@@ -572,15 +508,7 @@ public class URLRegexTest {
 
     @Test
     public void testBadMatch2() {
-        List<String> urls = new ArrayList<>();
-        urls.add("http://www.tomshardware.co.uk/forum/forum-4/page-2.html");
-        urls.add("http://www.tomshardware.co.uk/forum/forum-4/page-20.html");
-        urls.add("http://www.tomshardware.co.uk/forum/forum-4/page-3.html");
-        urls.add("http://www.tomshardware.co.uk/forum/forum-74/page-100.html");
-        urls.add("http://www.tomshardware.co.uk/forum/forum-74/page-1000.html");
-        urls.add("http://www.tomshardware.co.uk/forum/forum-74/page-2.html");
-        urls.add("http://www.tomshardware.co.uk/forum/forum-74/page-200.html");
-        urls.add("http://www.tomshardware.co.uk/forum/forum-74/page-3.html");
+        List<String> urls = Arrays.asList(URLRegexCases.BAD_MATCH_2);
 
         String pattern = URLRegex.buildPattern(urls).toString();
         assertEquals("^http://www\\.tomshardware\\.co\\.uk/forum/forum\\-\\d+/page\\-\\d+\\.html$", pattern);
@@ -658,4 +586,185 @@ public class URLRegexTest {
         assertEquals("fNUM.html", result);
     }
 
+
+    @Test
+    public void testPossessiveSameMatches() {
+        List<String[]> cases = new ArrayList<>(Arrays.asList(URLRegexCases.ALL));
+        cases.add(new String[] {"http://www.domain.com/search?q=shoes&page=2", "http://www.domain.com/search?q=hats"});
+        cases.add(new String[] {"http://www.domain.com/search?print", "http://www.domain.com/search?print&q=hats",
+            "http://www.domain.com/search"});
+        cases.add(new String[] {"http://www.domain.com/item/12/", "http://www.domain.com/item/345/?amp",
+            "http://www.domain.com/list/12"});
+
+        Random random = new Random(3);
+        for (String[] inputs : cases) {
+            URLRegexBuilder builder = new URLRegexBuilder(true).withPossessiveQuantifiers();
+            builder.addAll(Arrays.asList(inputs));
+            Pattern possessive = builder.snapshot();
+            Pattern pattern = builder.snapshotModel().toPattern();
+
+            for (String probe : URLAutomatonTest.probes(Arrays.asList(inputs), random)) {
+                System.out.println("Testing " + possessive + " with : " + probe);
+                assertEquals(pattern.matcher(probe).matches(), possessive.matcher(probe).matches());
+            }
+        }
+    }
+
+    @Test
+    public void testPossessiveQueries() {
+        char[] alphabet = {'a', 'b', 'x', '=', '&', '1'};
+        String[][] cases = {
+            {"http://h.com/p?a=1", "http://h.com/p?b=2"},
+            {"http://h.com/p?a=1", "http://h.com/p?b=2", "http://h.com/p"},
+            {"http://h.com/p?x", "http://h.com/p?b"},
+            {"http://h.com/p?x", "http://h.com/p"},
+            {"http://h.com/p?a=1", "http://h.com/p?b=2", "http://h.com/p?x"},
+            {"http://h.com/p?x", "http://h.com/p?a=1"},
+            {"http://h.com/p?a=1", "http://h.com/p?ab=2", "http://h.com/p?x", "http://h.com/p"}};
+
+        for (String[] inputs : cases) {
+            URLRegexBuilder builder = new URLRegexBuilder(true).withPossessiveQuantifiers();
+            builder.addAll(Arrays.asList(inputs));
+            Matcher possessive = builder.snapshot().matcher("");
+            Matcher matcher = builder.snapshotModel().toPattern().matcher("");
+
+            // Every query of up to 6 chars, with and without the question mark
+            int[] digits = new int[7];
+            for (int length = 0; length <= 6; length++) {
+                Arrays.fill(digits, 0);
+                do {
+                    StringBuilder query = new StringBuilder();
+                    for (int i = 0; i < length; i++) {
+                        query.append(alphabet[digits[i]]);
+                    }
+                    for (String url : new String[] {"http://h.com/p?" + query, "http://h.com/p" + query}) {
+                        assertEquals(possessive.pattern() + " with " + url, matcher.reset(url).matches(),
+                            possessive.reset(url).matches());
+                    }
+                } while (increment(digits, length, alphabet.length));
+            }
+        }
+    }
+
+    /**
+     * Step to the next string of a length over an alphabet, its chars being the digits of a little endian number
+     * @return false once every string of the length was enumerated
+     */
+    static boolean increment(int[] digits, int length, int base) {
+        for (int i = 0; i < length; i++) {
+            if (++digits[i] < base)
+                return true;
+            digits[i] = 0;
+        }
+        return false;
+    }
+
+    @Test
+    public void testPossessiveForm() {
+        URLRegexBuilder builder = new URLRegexBuilder().withPossessiveQuantifiers();
+        builder.add("http://www.domain.com/forums/f1/viewforum_31.htm?a=1");
+        builder.add("http://www.domain.com/forums/f2/viewforum_32.htm?b=2");
+        assertEquals("^http://www\\.domain\\.com/forums/f\\d++/viewforum_\\d++\\.htm\\??" +
+            "(?>[&;]?(?:a|b)=[^&;]++)(?>[&;](?:a|b)=[^&;]++)*+$", builder.snapshot().pattern());
+
+        // Automata are compiled from the plain form
+        assertTrue(builder.snapshotAutomaton().matches("http://www.domain.com/forums/f3/viewforum_3.htm?a=1&b=2"));
+    }
+
+    @Test(timeout = 5000)
+    public void testPossessiveHostileInput() {
+        String[][] cases = {
+            {"http://forum.domain.com/some-controller/some-action?baz", "http://forum.domain.com/some-controller/some-action?test=2"},
+            {"http://forum.domain.com/some-controller/some-action?baz", "http://forum.domain.com/some-controller/some-action"},
+            {"http://forum.domain.com/some-controller/some-action?a=1", "http://forum.domain.com/some-controller/some-action?b=1"}};
+
+        for (String[] inputs : cases) {
+            URLRegexBuilder builder = new URLRegexBuilder().withPossessiveQuantifiers();
+            builder.addAll(Arrays.asList(inputs));
+            Matcher matcher = builder.snapshot().matcher("");
+
+            for (String filler : new String[] {"a", "a=", "&a=1a"}) {
+                StringBuilder url = new StringBuilder("http://forum.domain.com/some-controller/some-action?");
+                for (int i = 0; i < 2000; i++) {
+                    url.append(filler);
+                }
+                url.append("&=");
+                assertFalse(matcher.reset(url).matches());
+            }
+        }
+    }
+
+    @Test
+    public void testBudget() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            urls.add("http://www.domain.com/forums/f" + (i % 7) + "/viewtopic_" + i + ".htm" + (i > 50 ? "?p=" + i : ""));
+        }
+
+        BuildResult complete = URLRegex.buildPattern(urls, 1, TimeUnit.MINUTES);
+        assertFalse(complete.isPartial());
+        assertEquals(urls.size(), complete.processed());
+        assertEquals(URLRegex.buildPattern(urls).pattern(), complete.getPattern().pattern());
+
+        // Out of budget, the pattern of the first urls
+        BuildResult partial = URLRegex.buildPattern(urls, 10, 1, TimeUnit.MINUTES);
+        assertTrue(partial.isPartial());
+        assertEquals(10, partial.processed());
+        assertEquals(URLRegex.buildPattern(urls.subList(0, 10)).pattern(), partial.getPattern().pattern());
+
+        BuildResult expired = URLRegex.buildPattern(urls, 0, TimeUnit.NANOSECONDS);
+        assertTrue(expired.isPartial());
+        assertEquals(0, expired.processed());
+
+        Thread.currentThread().interrupt();
+        BuildResult interrupted = URLRegex.buildPattern(urls, 1, TimeUnit.MINUTES);
+        assertTrue(Thread.interrupted());
+        assertTrue(interrupted.isPartial());
+        assertEquals(0, interrupted.processed());
+    }
+
+    @Test(timeout = 10000)
+    public void testAsync() throws Exception {
+        List<String> urls = Arrays.asList(URLRegexCases.LAST_ELEMENT_2);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(URLRegex.buildPattern(urls).pattern(),
+                URLRegex.buildPatternAsync(urls, executor).get().pattern());
+            BuildResult result = URLRegex.buildPatternAsync(urls, executor, 1, TimeUnit.MINUTES).get();
+            assertFalse(result.isPartial());
+            assertEquals(URLRegex.buildPattern(urls).pattern(), result.getPattern().pattern());
+
+            // Cancelled before it runs, the build stops without folding any url
+            CountDownLatch running = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    running.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            final AtomicInteger read = new AtomicInteger();
+            List<String> counted = new AbstractList<String>() {
+                @Override
+                public String get(int index) {
+                    read.incrementAndGet();
+                    return urls.get(index);
+                }
+
+                @Override
+                public int size() {
+                    return urls.size();
+                }
+            };
+            CompletableFuture<Pattern> future = URLRegex.buildPatternAsync(counted, executor);
+            assertTrue(future.cancel(true));
+            running.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertTrue(future.isCancelled());
+            assertEquals(0, read.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -0,0 +1,127 @@
+package com.github.andreAmorimF.urlregex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class URLTokenizerTest {
+
+    private static final Pattern DEFAUL_START_PATTERN = Pattern.compile("^(https?://)");
+    private static final Pattern URL_TOKENS_PATTERN = Pattern.compile("([^\\/]+)(\\/?)");
+    private static final Pattern QUERY_SPLIT_PATTERN = Pattern.compile("&?(\\w+)(=[^&]+)?");
+
+    private static final String[] URLS = {
+        "http://www.domain.com/forums/",
+        "https://www.domain.co.uk/test//forum/what-gives-away_4732",
+        "www.domain.com/forums",
+        "HTTP://www.domain.com/forums",
+        "http://a/b/c/d/list",
+        "http://forum.domain.com/some-controller/some-action?=baz&foo=bar&edit&spam=eggs=ham&==&",
+        "http://forum.domain.com/forums/viewforum_31.htm?query=value;query2=value2",
+        "http://www.domain.fr/search.aspx#?fh_location=categories%3C%7Buniversefr%7D",
+        "http://domain.com.?a=&b=1&&c&=d",
+        "http://.domain..com../x?",
+        "http://.../x?&&a",
+        "http://",
+        "",
+        "/leading/slash?x=1?y=2",
+    };
+
+    @Test
+    public void testSameAsRegex() {
+        URLTokenizer tokenizer = new URLTokenizer();
+        for (String url : URLS) {
+            Recorder recorder = new Recorder();
+            tokenizer.tokenize(new StringBuilder(url), true, recorder);
+            System.out.println("Tokens of " + url + " : " + recorder.parts);
+            assertEquals(reference(url), recorder.parts);
+        }
+    }
+
+    @Test
+    public void testReverseDomain() {
+        URLTokenizer tokenizer = new URLTokenizer();
+        assertEquals("com.domain.www", tokenizer.reverseDomain("www.domain.com", 0, 14));
+        assertEquals("com.domain", tokenizer.reverseDomain("x/domain.com.", 2, 13));
+        assertEquals("b..a", tokenizer.reverseDomain("a..b", 0, 4));
+        assertEquals("a.", tokenizer.reverseDomain(".a", 0, 2));
+        assertEquals("", tokenizer.reverseDomain("...", 0, 3));
+        assertEquals("localhost", tokenizer.reverseDomain("localhost", 0, 9));
+    }
+
+    @Test
+    public void testWithoutSegments() {
+        Recorder recorder = new Recorder();
+        new URLTokenizer().tokenize("https://www.domain.com/forums?a=1", false, recorder);
+        assertEquals("[ssl, ?, a=]", recorder.parts.toString());
+    }
+
+    /**
+     * Parts of the url as found by the regular expressions the tokenizer replaces
+     */
+    private static List<String> reference(String url) {
+        List<String> parts = new ArrayList<>();
+        Matcher start = DEFAUL_START_PATTERN.matcher(url);
+        if (start.find())
+            parts.add(start.group(1).equals("https://") ? "ssl" : "http");
+        url = url.replaceFirst(DEFAUL_START_PATTERN.pattern(), "");
+
+        String path = url.contains("?") ? url.substring(0, url.indexOf("?")) : url;
+        Matcher segments = URL_TOKENS_PATTERN.matcher(path);
+        boolean first = true;
+        while (segments.find()) {
+            parts.add((first ? reverse(segments.group(1)) : segments.group(1)) + "|" + segments.group(2));
+            first = false;
+        }
+
+        if (url.contains("?")) {
+            parts.add("?");
+            Matcher query = QUERY_SPLIT_PATTERN.matcher(url.substring(url.indexOf("?") + 1));
+            while (query.find()) {
+                parts.add(query.group(1) + (query.group(2) != null ? "=" : ""));
+            }
+        }
+        return parts;
+    }
+
+    private static String reverse(String token) {
+        String[] parts = token.split("\\.");
+        StringBuilder newToken = new StringBuilder();
+        for (int i = parts.length - 1; i >= 0; i--) {
+            newToken.append(parts[i]);
+            if (i > 0)
+                newToken.append(".");
+        }
+        return newToken.toString();
+    }
+
+    private static class Recorder implements URLTokenizer.Handler {
+
+        private final List<String> parts = new ArrayList<>();
+
+        @Override
+        public void protocol(boolean ssl) {
+            parts.add(ssl ? "ssl" : "http");
+        }
+
+        @Override
+        public void segment(String token, String separator) {
+            parts.add(token + "|" + separator);
+        }
+
+        @Override
+        public void query() {
+            parts.add("?");
+        }
+
+        @Override
+        public void queryParameter(String key, QueryModel.ValueType value) {
+            parts.add(key + (value != null ? "=" : ""));
+        }
+    }
+}